@@ -0,0 +1,159 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.AppConfig;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.SchemaMigrator;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * BenchmarkDatabase class to create and seed an in-memory database for the benchmarks
+ *
+ * @version 1.0
+ */
+public final class BenchmarkDatabase {
+
+    /**
+     * The password of every seeded user
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * The hash of {@link #PASSWORD}, computed once for all the seeded users
+     */
+    public static final String PASSWORD_HASH = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+
+    /**
+     * The number of rows per JDBC batch while seeding
+     */
+    private static final int BATCH_SIZE = 5_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Create an empty in-memory database migrated to the application schema
+     * The MySQL compatibility mode keeps the identity columns in sync with the explicit ids of the seeded rows
+     *
+     * @return the database
+     * @throws SQLException if the database can't be created
+     */
+    public static Database create() throws SQLException {
+        return create(new Properties());
+    }
+
+    /**
+     * Create an empty in-memory database migrated to the application schema with some configuration overrides
+     *
+     * @param overrides the properties replacing the default configuration
+     * @return the database
+     * @throws SQLException if the database can't be created
+     */
+    public static Database create(Properties overrides) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("database.url", "jdbc:h2:mem:istore-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.setProperty("database.username", "sa");
+        properties.setProperty("database.password", "");
+        properties.putAll(overrides);
+
+        Database database = new Database(new AppConfig(properties));
+        new SchemaMigrator(database).migrate();
+        return database;
+    }
+
+    /**
+     * Get the email of a seeded user
+     *
+     * @param id the id of the user
+     * @return the email of the user
+     */
+    public static String email(int id) {
+        return "user" + id + "@istore.fr";
+    }
+
+    /**
+     * Insert verified users with ids from 1 to count
+     *
+     * @param database the database
+     * @param count    the number of users
+     * @throws SQLException if the users can't be inserted
+     */
+    public static void seedUsers(Database database, int count) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO users (id, email, password, role, is_verified) VALUES (?, ?, ?, 'USER', true)")) {
+            connection.setAutoCommit(false);
+            for (int id = 1; id <= count; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, email(id));
+                statement.setString(3, PASSWORD_HASH);
+                statement.addBatch();
+                if (id % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Insert stores with ids from 1 to count, each with an inventory, some items and some employees
+     * Users must have been seeded first
+     *
+     * @param database          the database
+     * @param count             the number of stores
+     * @param itemsPerStore     the number of items per inventory
+     * @param employeesPerStore the number of employees per store
+     * @param userCount         the number of seeded users
+     * @throws SQLException if the stores can't be inserted
+     */
+    public static void seedStores(Database database, int count, int itemsPerStore, int employeesPerStore, int userCount) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stores = connection.prepareStatement("INSERT INTO stores (id, name) VALUES (?, ?)");
+             PreparedStatement inventories = connection.prepareStatement("INSERT INTO inventory (id, store_id) VALUES (?, ?)");
+             PreparedStatement items = connection.prepareStatement("INSERT INTO inventory_items (inventory_id, name, price, quantity) VALUES (?, ?, ?, ?)");
+             PreparedStatement employees = connection.prepareStatement("INSERT INTO stores_employee (store_id, employee_id) VALUES (?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int id = 1; id <= count; id++) {
+                stores.setInt(1, id);
+                stores.setString(2, "Store " + id);
+                stores.addBatch();
+
+                inventories.setInt(1, id);
+                inventories.setInt(2, id);
+                inventories.addBatch();
+
+                for (int item = 0; item < itemsPerStore; item++) {
+                    items.setInt(1, id);
+                    items.setString(2, "Item " + item);
+                    items.setInt(3, 100 + item);
+                    items.setInt(4, 10);
+                    items.addBatch();
+                }
+
+                for (int employee = 0; employee < employeesPerStore; employee++) {
+                    employees.setInt(1, id);
+                    employees.setInt(2, 1 + (id * employeesPerStore + employee) % userCount);
+                    employees.addBatch();
+                }
+
+                if (id % 500 == 0) {
+                    stores.executeBatch();
+                    inventories.executeBatch();
+                    items.executeBatch();
+                    employees.executeBatch();
+                }
+            }
+            stores.executeBatch();
+            inventories.executeBatch();
+            items.executeBatch();
+            employees.executeBatch();
+            connection.commit();
+        }
+    }
+}
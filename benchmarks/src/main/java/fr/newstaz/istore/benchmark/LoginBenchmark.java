@@ -0,0 +1,102 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.controller.Controller;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.repository.Repository;
+import fr.newstaz.istore.response.LoginResponse;
+import fr.newstaz.istore.security.LoginRateLimiter;
+import fr.newstaz.istore.security.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoginBenchmark class to measure a login, dominated by the BCrypt verification
+ * {@link #loginBurst()} submits a burst of logins at once to the bounded password hashing pool,
+ * whose latency histograms are printed at the end of the trial.
+ * These logins are not rate limited, whereas {@link #rejectedLogin()} measures an attempt
+ * turned away by the {@link LoginRateLimiter} before reaching BCrypt
+ *
+ * @version 1.0
+ * @see fr.newstaz.istore.controller.AuthenticationController#login(String, String)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    /**
+     * The number of logins of a burst, less than the queue capacity of the password hashing pool
+     */
+    private static final int BURST_SIZE = 32;
+
+    private Database database;
+
+    private Controller controller;
+
+    private Controller throttledController;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create();
+        BenchmarkDatabase.seedUsers(database, 1_000);
+        Repository repository = new Repository(database);
+        controller = new Controller(repository, new PasswordHasher(), LoginRateLimiter.unlimited());
+        controller.getUserController().getAllUsers();
+        LoginRateLimiter lockedOut = new LoginRateLimiter(1, TimeUnit.HOURS.toMillis(1), LoginRateLimiter.DEFAULT_GLOBAL_BURST,
+                LoginRateLimiter.DEFAULT_GLOBAL_REFILL_MILLIS, 1, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1),
+                LoginRateLimiter.DEFAULT_MAX_TRACKED_EMAILS);
+        throttledController = new Controller(repository, controller.getPasswordHasher(), lockedOut);
+        throttledController.getAuthenticationController().login(BenchmarkDatabase.email(7), "wrong-password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Password hashing: " + controller.getPasswordHasher());
+        System.out.println("Login attempts: " + throttledController.getAuthenticationController().getLoginRateLimiter());
+        database.close();
+    }
+
+    @Benchmark
+    public LoginResponse login() {
+        return controller.getAuthenticationController().login(BenchmarkDatabase.email(42), BenchmarkDatabase.PASSWORD);
+    }
+
+    @Benchmark
+    public LoginResponse wrongPassword() {
+        return controller.getAuthenticationController().login(BenchmarkDatabase.email(42), "wrong-password");
+    }
+
+    @Benchmark
+    public List<LoginResponse> loginBurst() {
+        List<CompletableFuture<LoginResponse>> logins = new ArrayList<>(BURST_SIZE);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            logins.add(controller.getAuthenticationController().loginAsync(BenchmarkDatabase.email(1 + i), BenchmarkDatabase.PASSWORD));
+        }
+        return logins.stream().map(CompletableFuture::join).toList();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public LoginResponse rejectedLogin() {
+        return throttledController.getAuthenticationController().login(BenchmarkDatabase.email(7), "wrong-password");
+    }
+}
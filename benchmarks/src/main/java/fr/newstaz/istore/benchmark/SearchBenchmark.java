@@ -0,0 +1,86 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.controller.Controller;
+import fr.newstaz.istore.cache.TrigramIndex;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Store;
+import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.repository.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchBenchmark class to measure the user and store searches on a warm cache
+ * The trigram indexes are built during the setup, {@link #indexUsers()} measures their construction
+ *
+ * @version 1.0
+ * @see fr.newstaz.istore.controller.UserController#searchUsers(String)
+ * @see fr.newstaz.istore.controller.StoreController#searchStores(String)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    @Param({"10000"})
+    private int stores;
+
+    @Param({"user4242", "42@"})
+    private String query;
+
+    private Database database;
+
+    private Controller controller;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create();
+        BenchmarkDatabase.seedUsers(database, users);
+        BenchmarkDatabase.seedStores(database, stores, 0, 0, users);
+        controller = new Controller(new Repository(database));
+        controller.getUserController().searchUsers(query);
+        controller.getStoreController().searchStores("store 42");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> searchUsers() {
+        return controller.getUserController().searchUsers(query);
+    }
+
+    @Benchmark
+    public List<Store> searchStores() {
+        return controller.getStoreController().searchStores("store 42");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TrigramIndex<User> indexUsers() {
+        return new TrigramIndex<>(controller.getUserController().getAllUsers(), User::getId, User::getEmail);
+    }
+}
@@ -0,0 +1,97 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.cache.UserCache;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.StatementCacheMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SingleFlightBenchmark class to measure concurrent misses on a cold user cache
+ * <p>
+ * Each operation creates an empty cache and releases the callers at the same time.
+ * The number of queries run during the operation is read from the statement cache metrics,
+ * and the operation fails if the misses were not coalesced into a single load.
+ * </p>
+ *
+ * @version 1.0
+ * @see UserCache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"8", "32"})
+    private int callers;
+
+    private Database database;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create();
+        BenchmarkDatabase.seedUsers(database, USERS);
+        executor = Executors.newFixedThreadPool(callers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Benchmark
+    public int concurrentMisses() throws Exception {
+        UserCache userCache = new UserCache(database);
+        StatementCacheMetrics metrics = database.getConnectionPool().getStatementCacheMetrics();
+        long queriesBefore = metrics.getHits() + metrics.getMisses();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return userCache.getAllUsers().size();
+            }));
+        }
+        start.countDown();
+
+        int loaded = 0;
+        for (Future<Integer> result : results) {
+            loaded += result.get();
+        }
+
+        long queries = metrics.getHits() + metrics.getMisses() - queriesBefore;
+        if (queries != 1 || loaded != callers * USERS) {
+            throw new IllegalStateException(callers + " concurrent misses ran " + queries + " queries instead of 1");
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,73 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.dao.UserDAO;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.StatementCacheMetrics;
+import fr.newstaz.istore.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatementCacheBenchmark class to measure the DAO lookups with and without the prepared statement cache
+ *
+ * @version 1.0
+ * @see StatementCacheMetrics
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"0", "64"})
+    private int statementCacheSize;
+
+    private Database database;
+
+    private UserDAO userDAO;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("database.pool.statement-cache-size", String.valueOf(statementCacheSize));
+        database = BenchmarkDatabase.create(properties);
+        BenchmarkDatabase.seedUsers(database, USERS);
+        userDAO = new UserDAO(database);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Statement cache: " + database.getConnectionPool().getStatementCacheMetrics());
+        database.close();
+    }
+
+    @Benchmark
+    public User getUserByEmail() {
+        return userDAO.getUser(BenchmarkDatabase.email(1 + ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userDAO.getUser(1 + ThreadLocalRandom.current().nextInt(USERS));
+    }
+}
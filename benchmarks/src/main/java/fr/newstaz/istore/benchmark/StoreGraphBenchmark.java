@@ -0,0 +1,110 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.cache.InventoryCache;
+import fr.newstaz.istore.cache.StoreCache;
+import fr.newstaz.istore.dao.StoreDAO;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.StatementCacheMetrics;
+import fr.newstaz.istore.model.Store;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StoreGraphBenchmark class to measure the loading of the whole store graph and the cached store lookups
+ * <p>
+ * Besides the latency, the loads report the number of queries they ran (read from the statement cache metrics,
+ * every prepared statement being one round trip) next to the number of loads, the queries per load being their ratio.
+ * </p>
+ *
+ * @version 1.0
+ * @see StoreDAO#getAllStores()
+ * @see StoreCache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreGraphBenchmark {
+
+    @Param({"1000", "10000"})
+    private int stores;
+
+    @Param({"10"})
+    private int itemsPerStore;
+
+    @Param({"5"})
+    private int employeesPerStore;
+
+    private Database database;
+
+    private StoreDAO storeDAO;
+
+    private StoreCache storeCache;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create();
+        int users = Math.max(1_000, stores);
+        BenchmarkDatabase.seedUsers(database, users);
+        BenchmarkDatabase.seedStores(database, stores, itemsPerStore, employeesPerStore, users);
+        InventoryCache inventoryCache = new InventoryCache(database);
+        storeDAO = new StoreDAO(database, inventoryCache);
+        storeCache = new StoreCache(database, inventoryCache);
+        storeCache.getAllStores();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Store> loadGraph(RoundTrips roundTrips) {
+        StatementCacheMetrics metrics = database.getConnectionPool().getStatementCacheMetrics();
+        long queriesBefore = metrics.getHits() + metrics.getMisses();
+        List<Store> graph = storeDAO.getAllStores();
+        roundTrips.queries += metrics.getHits() + metrics.getMisses() - queriesBefore;
+        roundTrips.loads++;
+        return graph;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Store cachedLookupByName() {
+        return storeCache.getStore("Store " + (1 + ThreadLocalRandom.current().nextInt(stores)));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        public long queries;
+
+        public long loads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+            loads = 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package fr.newstaz.istore.benchmark;
+
+import fr.newstaz.istore.cache.Snapshot;
+import fr.newstaz.istore.cache.UserCache;
+import fr.newstaz.istore.dao.UserDAO;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserCacheBenchmark class to measure the user lookups on a warm cache and the cost of a cache miss
+ *
+ * @version 1.0
+ * @see UserCache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserCacheBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    private Database database;
+
+    private UserCache userCache;
+
+    private UserDAO userDAO;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        database = BenchmarkDatabase.create();
+        BenchmarkDatabase.seedUsers(database, users);
+        userCache = new UserCache(database);
+        userDAO = new UserDAO(database);
+        userCache.getAllUsers();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public User hitById() {
+        return userCache.getUser(1 + ThreadLocalRandom.current().nextInt(users));
+    }
+
+    @Benchmark
+    public User hitByEmail() {
+        return userCache.getUser(BenchmarkDatabase.email(1 + ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 3, time = 1)
+    public Snapshot<User> miss() {
+        return new Snapshot<>(userDAO.getAllUsers(), User::getId, User::getEmail);
+    }
+}
@@ -1,5 +1,8 @@
 package fr.newstaz.istore;
 
+import fr.newstaz.istore.database.Dialect;
+import fr.newstaz.istore.database.ExecutorMode;
+
 import java.io.InputStream;
 import java.util.Properties;
 
@@ -18,6 +21,7 @@ public class AppConfig {
      * @see #getDatabaseUrl()
      * @see #getDatabaseUsername()
      * @see #getDatabasePassword()
+     * @see #getPoolMaxSize()
      */
     private Properties properties;
 
@@ -28,6 +32,16 @@ public class AppConfig {
         loadConfig();
     }
 
+    /**
+     * Constructor to load the configuration and override some of its properties
+     *
+     * @param overrides the properties replacing the ones of the configuration file
+     */
+    public AppConfig(Properties overrides) {
+        loadConfig();
+        properties.putAll(overrides);
+    }
+
     /**
      * Load the configuration
      */
@@ -70,4 +84,319 @@ public class AppConfig {
     public String getDatabasePassword() {
         return properties.getProperty("database.password");
     }
+
+    /**
+     * Get the SQL dialect of the database
+     * <p>
+     * The dialect is read from {@code database.dialect} (MYSQL or H2),
+     * or guessed from the database url when the property is missing.
+     * </p>
+     *
+     * @return the dialect (default: the dialect of the database url)
+     */
+    public Dialect getDatabaseDialect() {
+        String value = properties.getProperty("database.dialect");
+        if (value == null || value.isBlank()) {
+            return Dialect.forUrl(getDatabaseUrl());
+        }
+        Dialect dialect = Dialect.forName(value);
+        if (dialect == null) {
+            System.out.println("Invalid value for database.dialect: " + value);
+            return Dialect.forUrl(getDatabaseUrl());
+        }
+        return dialect;
+    }
+
+    /**
+     * Get the minimum number of pooled connections
+     *
+     * @return the minimum number of pooled connections (default: 1)
+     */
+    public int getPoolMinSize() {
+        return getInt("database.pool.min-size", 1);
+    }
+
+    /**
+     * Get the maximum number of pooled connections
+     *
+     * @return the maximum number of pooled connections (default: 8)
+     */
+    public int getPoolMaxSize() {
+        return getInt("database.pool.max-size", 8);
+    }
+
+    /**
+     * Get the time after which an idle pooled connection is closed
+     *
+     * @return the idle timeout in milliseconds (default: 10 minutes)
+     */
+    public long getPoolIdleTimeout() {
+        return getLong("database.pool.idle-timeout", 600_000L);
+    }
+
+    /**
+     * Get the maximum time to wait for a pooled connection
+     *
+     * @return the borrow timeout in milliseconds (default: 30 seconds)
+     */
+    public long getPoolBorrowTimeout() {
+        return getLong("database.pool.borrow-timeout", 30_000L);
+    }
+
+    /**
+     * Get the time after which a borrowed connection is reported as leaked
+     *
+     * @return the leak detection threshold in milliseconds (default: 60 seconds, 0 to disable)
+     */
+    public long getPoolLeakDetectionThreshold() {
+        return getLong("database.pool.leak-detection-threshold", 60_000L);
+    }
+
+    /**
+     * Get the maximum number of prepared statements cached per pooled connection
+     *
+     * @return the statement cache size (default: 64, 0 to disable)
+     */
+    public int getPoolStatementCacheSize() {
+        return getInt("database.pool.statement-cache-size", 64);
+    }
+
+    /**
+     * Get the execution mode of the database tasks
+     *
+     * @return the execution mode (default: LEGACY)
+     */
+    public ExecutorMode getExecutorMode() {
+        String value = properties.getProperty("database.executor.mode");
+        if (value == null || value.isBlank()) {
+            return ExecutorMode.LEGACY;
+        }
+        try {
+            return ExecutorMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid value for database.executor.mode: " + value);
+            return ExecutorMode.LEGACY;
+        }
+    }
+
+    /**
+     * Get the number of threads of the bounded executor
+     *
+     * @return the number of threads (default: the maximum number of pooled connections)
+     */
+    public int getExecutorThreads() {
+        return getInt("database.executor.threads", getPoolMaxSize());
+    }
+
+    /**
+     * Get the queue capacity of the bounded executor
+     *
+     * @return the queue capacity (default: 1000)
+     */
+    public int getExecutorQueueCapacity() {
+        return getInt("database.executor.queue-capacity", 1000);
+    }
+
+    /**
+     * Get the time after which a cached snapshot of the users or stores is reloaded in the background
+     *
+     * @return the refresh delay in milliseconds (default: 5 minutes, 0 to disable)
+     */
+    public long getCacheRefreshAfter() {
+        return getLong("cache.refresh-after", 300_000L);
+    }
+
+    /**
+     * Get the time after which a cached snapshot of the users or stores that is not read anymore is dropped
+     *
+     * @return the expiration delay in milliseconds (default: 1 hour)
+     */
+    public long getCacheExpireAfter() {
+        return getLong("cache.expire-after", 3_600_000L);
+    }
+
+    /**
+     * Get the maximum age of a cached snapshot of the users or stores
+     * An older snapshot is never served stale: it is reloaded before being read
+     *
+     * @return the maximum staleness in milliseconds (default: 30 minutes)
+     */
+    public long getCacheMaxStaleness() {
+        return getLong("cache.max-staleness", 1_800_000L);
+    }
+
+    /**
+     * Get the maximum number of cached inventories, which should hold the inventories of all the stores
+     *
+     * @return the maximum size (default: 10000)
+     */
+    public long getInventoryCacheMaxSize() {
+        return getLong("cache.inventory.max-size", 10_000L);
+    }
+
+    /**
+     * Get the time after which a cached inventory is reloaded from the database on its next read
+     *
+     * @return the expiration delay in milliseconds (default: 10 minutes)
+     */
+    public long getInventoryCacheExpireAfter() {
+        return getLong("cache.inventory.expire-after", 600_000L);
+    }
+
+    /**
+     * Get the number of buffered inventory item updates triggering a flush
+     *
+     * @return the batch size (default: 100)
+     */
+    public int getInventoryWriteBehindBatchSize() {
+        return getInt("inventory.write-behind.batch-size", 100);
+    }
+
+    /**
+     * Get the maximum time an inventory item update stays buffered
+     *
+     * @return the flush interval in milliseconds (default: 500)
+     */
+    public long getInventoryWriteBehindFlushInterval() {
+        return getLong("inventory.write-behind.flush-interval", 500L);
+    }
+
+    /**
+     * Get the number of threads hashing and verifying the passwords
+     *
+     * @return the number of threads (default: the number of cores)
+     */
+    public int getPasswordHashingThreads() {
+        return getInt("security.hashing.threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Get the maximum number of password operations waiting for a thread
+     *
+     * @return the queue capacity (default: 64)
+     */
+    public int getPasswordHashingQueueCapacity() {
+        return getInt("security.hashing.queue-capacity", 64);
+    }
+
+    /**
+     * Get the BCrypt cost of the new password hashes
+     *
+     * @return the cost (default: 0, the host is calibrated at startup)
+     */
+    public int getBcryptCost() {
+        return getInt("security.bcrypt.cost", 0);
+    }
+
+    /**
+     * Get the target verification time of a password, used to calibrate the BCrypt cost
+     *
+     * @return the target time in milliseconds (default: 250)
+     */
+    public long getBcryptTargetMillis() {
+        return getLong("security.bcrypt.target-millis", 250L);
+    }
+
+    /**
+     * Get the number of login attempts an email can make at once
+     *
+     * @return the burst (default: 5)
+     */
+    public int getLoginEmailBurst() {
+        return getInt("security.login.email-burst", 5);
+    }
+
+    /**
+     * Get the time for an email to get back a login attempt
+     *
+     * @return the refill time in milliseconds (default: 6000)
+     */
+    public long getLoginEmailRefillMillis() {
+        return getLong("security.login.email-refill-millis", 6_000L);
+    }
+
+    /**
+     * Get the number of login attempts all the emails can make at once
+     *
+     * @return the burst (default: 50)
+     */
+    public int getLoginGlobalBurst() {
+        return getInt("security.login.global-burst", 50);
+    }
+
+    /**
+     * Get the time to get back a global login attempt
+     *
+     * @return the refill time in milliseconds (default: 20)
+     */
+    public long getLoginGlobalRefillMillis() {
+        return getLong("security.login.global-refill-millis", 20L);
+    }
+
+    /**
+     * Get the number of consecutive failed logins locking out an email
+     *
+     * @return the threshold (default: 5)
+     */
+    public int getLoginLockoutThreshold() {
+        return getInt("security.login.lockout-threshold", 5);
+    }
+
+    /**
+     * Get the duration of the first lockout, doubled with each further failure
+     *
+     * @return the duration in milliseconds (default: 1000)
+     */
+    public long getLoginLockoutBaseMillis() {
+        return getLong("security.login.lockout-base-millis", 1_000L);
+    }
+
+    /**
+     * Get the maximum duration of a lockout
+     *
+     * @return the duration in milliseconds (default: 900000)
+     */
+    public long getLoginLockoutMaxMillis() {
+        return getLong("security.login.lockout-max-millis", 900_000L);
+    }
+
+    /**
+     * Get the maximum number of emails whose login attempts are tracked at once
+     *
+     * @return the maximum number of emails (default: 100000)
+     */
+    public int getLoginMaxTrackedEmails() {
+        return getInt("security.login.max-tracked-emails", 100_000);
+    }
+
+    /**
+     * Get an int property
+     *
+     * @param key          the key of the property
+     * @param defaultValue the value if the property is missing or invalid
+     * @return the value of the property
+     */
+    private int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Get a long property
+     *
+     * @param key          the key of the property
+     * @param defaultValue the value if the property is missing or invalid
+     * @return the value of the property
+     */
+    private long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
 }
@@ -1,10 +1,14 @@
 package fr.newstaz.istore;
 
+import fr.newstaz.istore.bootstrap.AccountSeeder;
 import fr.newstaz.istore.controller.Controller;
 import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.Dialect;
+import fr.newstaz.istore.database.SchemaMigrator;
 import fr.newstaz.istore.repository.Repository;
+import fr.newstaz.istore.security.LoginRateLimiter;
+import fr.newstaz.istore.security.PasswordHasher;
 import fr.newstaz.istore.ui.MainFrame;
-import org.mindrot.jbcrypt.BCrypt;
 
 import javax.swing.*;
 import java.sql.SQLException;
@@ -17,46 +21,37 @@ import java.sql.SQLException;
 public class IStore {
 
     public static void main(String[] args) {
+        AppConfig appConfig = new AppConfig();
+        Dialect dialect = appConfig.getDatabaseDialect();
+
         try {
-            Class.forName("com.mysql.jdbc.Driver");
+            Class.forName(dialect.getDriverClassName());
         } catch (ClassNotFoundException e) {
-            System.out.println("MySQL JDBC Driver not found.");
+            System.out.println(dialect.getName() + " JDBC Driver not found.");
             e.printStackTrace();
         }
 
-        System.out.println("MySQL JDBC Driver Registered!");
-
-        AppConfig appConfig = new AppConfig();
-
-        String url = appConfig.getDatabaseUrl();
-        String username = appConfig.getDatabaseUsername();
-        String password = appConfig.getDatabasePassword();
+        System.out.println(dialect.getName() + " JDBC Driver Registered!");
 
         Database database;
         try {
-            database = new Database(url, username, password);
+            database = new Database(appConfig);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        String passwordHash = BCrypt.hashpw("admin", BCrypt.gensalt());
-        String createAdmin = "INSERT INTO users (email, password, role, is_verified) VALUES ('admin', '"+passwordHash+"', 'ADMIN', true) ON DUPLICATE KEY UPDATE email = 'admin', password = '"+passwordHash+"', role = 'ADMIN', is_verified = true";
+        Runtime.getRuntime().addShutdownHook(new Thread(database::close));
+        new SchemaMigrator(database).migrate();
 
-        database.execute(() -> {
-            try (var statement = database.getConnection().prepareStatement("CREATE TABLE IF NOT EXISTS users (id INT PRIMARY KEY AUTO_INCREMENT, email VARCHAR(255) UNIQUE NOT NULL, password VARCHAR(255) NOT NULL, role VARCHAR(255), is_verified BOOLEAN)")) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-            try (var statement = database.getConnection().prepareStatement(createAdmin)) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        PasswordHasher passwordHasher = new PasswordHasher(appConfig);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("Password hashing: " + passwordHasher)));
+        LoginRateLimiter loginRateLimiter = new LoginRateLimiter(appConfig);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("Login attempts: " + loginRateLimiter)));
 
         Repository repository = new Repository(database);
+        repository.getWarmUp().start();
+        new AccountSeeder(database, repository.getUserRepository(), passwordHasher, AccountSeeder.DEFAULT_SEEDS).start();
 
-        Controller controller = new Controller(repository);
+        Controller controller = new Controller(repository, passwordHasher, loginRateLimiter);
 
         SwingUtilities.invokeLater(() -> {
             new MainFrame(controller);
@@ -0,0 +1,98 @@
+package fr.newstaz.istore.async;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Inventory;
+import fr.newstaz.istore.model.InventoryItem;
+import fr.newstaz.istore.repository.AsyncInventoryRepository;
+import fr.newstaz.istore.repository.InventoryRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncInventoryRepositoryAdapter class to run an {@link InventoryRepository} on the database executor
+ * <p>
+ * Writes of the wrapped repository run directly on the executor thread,
+ * so the returned futures complete once the database is updated.
+ * </p>
+ *
+ * @version 1.0
+ * @see AsyncInventoryRepository
+ */
+public class AsyncInventoryRepositoryAdapter implements AsyncInventoryRepository {
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * The wrapped repository
+     *
+     * @see InventoryRepository
+     */
+    private final InventoryRepository inventoryRepository;
+
+    /**
+     * AsyncInventoryRepositoryAdapter constructor
+     *
+     * @param database            the database
+     * @param inventoryRepository the wrapped repository
+     */
+    public AsyncInventoryRepositoryAdapter(Database database, InventoryRepository inventoryRepository) {
+        this.database = database;
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @Override
+    public CompletableFuture<Void> createInventory(Inventory inventory) {
+        return database.execute(() -> inventoryRepository.createInventory(inventory));
+    }
+
+    @Override
+    public CompletableFuture<Inventory> getInventory(int id) {
+        return database.supply(() -> inventoryRepository.getInventory(id));
+    }
+
+    @Override
+    public CompletableFuture<List<Inventory>> getAllInventories() {
+        return database.supply(inventoryRepository::getAllInventories);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateInventory(Inventory inventory) {
+        return database.execute(() -> inventoryRepository.updateInventory(inventory));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteInventory(Inventory inventory) {
+        return database.execute(() -> inventoryRepository.deleteInventory(inventory));
+    }
+
+    @Override
+    public CompletableFuture<InventoryItem> getItem(int storeId, String name) {
+        return database.supply(() -> inventoryRepository.getItem(storeId, name));
+    }
+
+    @Override
+    public CompletableFuture<InventoryItem> addItemToInventory(Inventory inventory, InventoryItem item) {
+        return database.supply(() -> inventoryRepository.addItemToInventory(inventory, item));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateItemInInventory(Inventory inventory, InventoryItem item) {
+        return database.execute(() -> inventoryRepository.updateItemInInventory(inventory, item));
+    }
+
+    @Override
+    public CompletableFuture<Integer> adjustQuantity(Inventory inventory, InventoryItem item, int delta) {
+        return database.supply(() -> inventoryRepository.adjustQuantity(inventory, item, delta));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteItemFromInventory(Inventory inventory, InventoryItem item) {
+        return database.execute(() -> inventoryRepository.deleteItemFromInventory(inventory, item));
+    }
+}
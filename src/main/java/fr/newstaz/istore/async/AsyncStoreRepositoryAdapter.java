@@ -0,0 +1,113 @@
+package fr.newstaz.istore.async;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Store;
+import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.repository.AsyncStoreRepository;
+import fr.newstaz.istore.repository.StoreRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncStoreRepositoryAdapter class to run a {@link StoreRepository} on the database executor
+ * <p>
+ * Writes of the wrapped repository run directly on the executor thread,
+ * so the returned futures complete once the database is updated.
+ * </p>
+ *
+ * @version 1.0
+ * @see AsyncStoreRepository
+ */
+public class AsyncStoreRepositoryAdapter implements AsyncStoreRepository {
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * The wrapped repository
+     *
+     * @see StoreRepository
+     */
+    private final StoreRepository storeRepository;
+
+    /**
+     * AsyncStoreRepositoryAdapter constructor
+     *
+     * @param database        the database
+     * @param storeRepository the wrapped repository
+     */
+    public AsyncStoreRepositoryAdapter(Database database, StoreRepository storeRepository) {
+        this.database = database;
+        this.storeRepository = storeRepository;
+    }
+
+    @Override
+    public CompletableFuture<Store> createStore(Store store) {
+        return database.supply(() -> storeRepository.createStore(store));
+    }
+
+    @Override
+    public CompletableFuture<Store> getStore(String name) {
+        return database.supply(() -> storeRepository.getStore(name));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteStore(Store store) {
+        return database.execute(() -> storeRepository.deleteStore(store));
+    }
+
+    @Override
+    public CompletableFuture<List<Store>> getAllStores() {
+        return database.supply(storeRepository::getAllStores);
+    }
+
+    @Override
+    public CompletableFuture<List<Store>> searchStores(String text, int limit) {
+        return database.supply(() -> storeRepository.searchStores(text, limit));
+    }
+
+    @Override
+    public CompletableFuture<Void> addEmployee(Store store, User user) {
+        return database.execute(() -> storeRepository.addEmployee(store, user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmployeeAlreadyAdded(User user, Store store) {
+        return database.supply(() -> storeRepository.isEmployeeAlreadyAdded(user, store));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getEmployees(Store store) {
+        return database.supply(() -> storeRepository.getEmployees(store));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeEmployee(Store store, User user) {
+        return database.execute(() -> storeRepository.removeEmployee(store, user));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getEmployeesPermissions(Store store) {
+        return database.supply(() -> storeRepository.getEmployeesPermissions(store));
+    }
+
+    @Override
+    public CompletableFuture<Void> addEmployeePermission(Store store, User user) {
+        return database.execute(() -> storeRepository.addEmployeePermission(store, user));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeEmployeePermission(Store store, User user) {
+        return database.execute(() -> storeRepository.removeEmployeePermission(store, user));
+    }
+
+    @Override
+    public CompletableFuture<List<Integer>> getPermittedStoreIds(User user) {
+        return database.supply(() -> storeRepository.getPermittedStoreIds(user));
+    }
+}
@@ -0,0 +1,116 @@
+package fr.newstaz.istore.async;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.repository.AsyncUserRepository;
+import fr.newstaz.istore.repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * AsyncUserRepositoryAdapter class to run a {@link UserRepository} on the database executor
+ * <p>
+ * Writes of the wrapped repository run directly on the executor thread,
+ * so the returned futures complete once the database is updated.
+ * </p>
+ *
+ * @version 1.0
+ * @see AsyncUserRepository
+ */
+public class AsyncUserRepositoryAdapter implements AsyncUserRepository {
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * The wrapped repository
+     *
+     * @see UserRepository
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * AsyncUserRepositoryAdapter constructor
+     *
+     * @param database       the database
+     * @param userRepository the wrapped repository
+     */
+    public AsyncUserRepositoryAdapter(Database database, UserRepository userRepository) {
+        this.database = database;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public CompletableFuture<Void> createUser(User user) {
+        return database.execute(() -> userRepository.createUser(user));
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(int id) {
+        return database.supply(() -> userRepository.getUser(id));
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(String login) {
+        return database.supply(() -> userRepository.getUser(login));
+    }
+
+    @Override
+    public CompletableFuture<User> getUserById(int id) {
+        return database.supply(() -> userRepository.getUserById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateUser(User user) {
+        return database.execute(() -> userRepository.updateUser(user));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteUser(User user) {
+        return database.execute(() -> userRepository.deleteUser(user));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getAllUsers() {
+        return database.supply(userRepository::getAllUsers);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> searchUsers(String text, int limit) {
+        return database.supply(() -> userRepository.searchUsers(text, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getAllUsers(BooleanSupplier cancelled) {
+        return database.supply(unlessCancelled(userRepository::getAllUsers, cancelled));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> searchUsers(String text, int limit, BooleanSupplier cancelled) {
+        return database.supply(unlessCancelled(() -> userRepository.searchUsers(text, limit), cancelled));
+    }
+
+    /**
+     * Wrap a query so that it is skipped when it is cancelled while waiting in the queue of the executor
+     *
+     * @param query     the query
+     * @param cancelled whether the query is no longer wanted
+     * @return the query throwing a {@link CancellationException} instead of running once cancelled
+     */
+    private static Supplier<List<User>> unlessCancelled(Supplier<List<User>> query, BooleanSupplier cancelled) {
+        return () -> {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Query cancelled before it ran");
+            }
+            return query.get();
+        };
+    }
+}
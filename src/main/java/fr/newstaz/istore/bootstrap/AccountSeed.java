@@ -0,0 +1,20 @@
+package fr.newstaz.istore.bootstrap;
+
+import fr.newstaz.istore.model.User;
+
+/**
+ * AccountSeed record describing an account created at the first startup
+ * <p>
+ * Increasing the version seeds the account again (password, role and verification) at the next startup.
+ * </p>
+ *
+ * @param name     the unique name of the seed
+ * @param version  the version of the seed
+ * @param email    the email of the account
+ * @param password the clear password of the account
+ * @param role     the role of the account
+ * @version 1.0
+ * @see AccountSeeder
+ */
+public record AccountSeed(String name, int version, String email, String password, User.Role role) {
+}
@@ -0,0 +1,184 @@
+package fr.newstaz.istore.bootstrap;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.repository.UserRepository;
+import fr.newstaz.istore.security.PasswordHasher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountSeeder class to create the initial accounts of the application
+ * <p>
+ * The version of every seed is recorded in the {@code seed_version} table. A seed is applied when its account
+ * is missing or when its version is newer than the recorded one, so a normal startup only reads that table
+ * and hashes nothing. An account created before the seeds were versioned is adopted as is.
+ * </p>
+ * <p>
+ * The seeding runs in the background: the versions are read on the database executor,
+ * the passwords are hashed by the {@link PasswordHasher} and the accounts are written through
+ * the {@link UserRepository}, which keeps the user cache in sync.
+ * </p>
+ *
+ * @version 1.0
+ * @see AccountSeed
+ */
+public class AccountSeeder {
+
+    /**
+     * The seeds of the application
+     */
+    public static final List<AccountSeed> DEFAULT_SEEDS = List.of(
+            new AccountSeed("admin", 1, "admin", "admin", User.Role.ADMIN)
+    );
+
+    /**
+     * Database instance
+     */
+    private final Database database;
+
+    /**
+     * UserRepository instance
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * PasswordHasher instance
+     */
+    private final PasswordHasher passwordHasher;
+
+    /**
+     * The seeds to apply
+     */
+    private final List<AccountSeed> seeds;
+
+    /**
+     * Constructor
+     *
+     * @param database       the database
+     * @param userRepository the user repository
+     * @param passwordHasher the password hasher
+     * @param seeds          the seeds to apply
+     */
+    public AccountSeeder(Database database, UserRepository userRepository, PasswordHasher passwordHasher, List<AccountSeed> seeds) {
+        this.database = database;
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.seeds = seeds;
+    }
+
+    /**
+     * Apply the missing or outdated seeds in the background
+     *
+     * @return the future completed with the number of applied seeds
+     */
+    public CompletableFuture<Integer> start() {
+        long start = System.nanoTime();
+        CompletableFuture<Integer> seeding = database.supply(this::findPendingSeeds).thenCompose(pending -> {
+            List<CompletableFuture<Void>> applied = new ArrayList<>();
+            for (AccountSeed seed : pending) {
+                applied.add(passwordHasher.hash(seed.password())
+                        .thenCompose(passwordHash -> database.execute(() -> apply(seed, passwordHash))));
+            }
+            return CompletableFuture.allOf(applied.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> pending.size());
+        });
+        seeding.whenComplete((count, throwable) -> {
+            if (throwable != null) {
+                System.out.println("Account seeding failed: " + throwable.getMessage());
+                return;
+            }
+            System.out.println("Account seeding done: " + count + " of " + seeds.size() + " seeds applied in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        });
+        return seeding;
+    }
+
+    /**
+     * Find the seeds whose account is missing or whose version is newer than the recorded one
+     * The version of an existing account without recorded version is recorded without changing the account
+     *
+     * @return the seeds to apply
+     */
+    private List<AccountSeed> findPendingSeeds() {
+        Map<String, Integer> versions = readVersions();
+        List<AccountSeed> pending = new ArrayList<>();
+        for (AccountSeed seed : seeds) {
+            Integer version = versions.get(seed.name());
+            boolean exists = userRepository.getUser(seed.email()) != null;
+            if (!exists || (version != null && version < seed.version())) {
+                pending.add(seed);
+            } else if (version == null) {
+                recordVersion(seed);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Create or update the account of a seed, then record its version
+     *
+     * @param seed         the seed
+     * @param passwordHash the hash of the password of the seed
+     */
+    private void apply(AccountSeed seed, String passwordHash) {
+        User user = userRepository.getUser(seed.email());
+        if (user == null) {
+            user = new User(seed.email(), passwordHash, seed.role());
+            user.setVerified(true);
+            userRepository.createUser(user);
+        } else {
+            User seededUser = new User(user);
+            seededUser.setPassword(passwordHash);
+            seededUser.setRole(seed.role());
+            seededUser.setVerified(true);
+            userRepository.updateUser(seededUser);
+        }
+        recordVersion(seed);
+        System.out.println("Seeded account " + seed.name() + " (version " + seed.version() + ")");
+    }
+
+    /**
+     * Read the recorded versions of the seeds
+     *
+     * @return the versions by seed name
+     */
+    private Map<String, Integer> readVersions() {
+        Map<String, Integer> versions = new HashMap<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT name, version FROM seed_version")) {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                versions.put(resultSet.getString("name"), resultSet.getInt("version"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return versions;
+    }
+
+    /**
+     * Record the version of a seed
+     *
+     * @param seed the seed
+     */
+    private void recordVersion(AccountSeed seed) {
+        String upsert = database.getDialect().upsert("seed_version", List.of("name", "version"), "name");
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(upsert)) {
+            statement.setString(1, seed.name());
+            statement.setInt(2, seed.version());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package fr.newstaz.istore.cache;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.repository.StoreRepository;
+import fr.newstaz.istore.repository.UserRepository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * CacheWarmUp class to preload the caches at startup
+ * <p>
+ * The users and the store graph (stores, employees and inventories) are loaded concurrently on the database
+ * executor while the UI is being created, so the first interaction is a cache hit.
+ * The readiness future completes once every phase is done, and the duration of each phase is kept.
+ * </p>
+ *
+ * @version 1.0
+ * @see UserCache
+ * @see StoreCache
+ */
+public class CacheWarmUp {
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * UserRepository instance
+     *
+     * @see UserRepository
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * StoreRepository instance
+     *
+     * @see StoreRepository
+     */
+    private final StoreRepository storeRepository;
+
+    /**
+     * The duration of each phase in milliseconds, in completion order
+     */
+    private final Map<String, Long> phaseTimings = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * The future completed when the warm-up is done
+     */
+    private final CompletableFuture<Void> readiness = new CompletableFuture<>();
+
+    /**
+     * Whether the warm-up was started
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * CacheWarmUp constructor
+     *
+     * @param database        the database
+     * @param userRepository  the user repository to warm up
+     * @param storeRepository the store repository to warm up
+     */
+    public CacheWarmUp(Database database, UserRepository userRepository, StoreRepository storeRepository) {
+        this.database = database;
+        this.userRepository = userRepository;
+        this.storeRepository = storeRepository;
+    }
+
+    /**
+     * Start the warm-up (only the first call starts it)
+     *
+     * @return the readiness future
+     */
+    public CompletableFuture<Void> start() {
+        if (!started.compareAndSet(false, true)) {
+            return readiness;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Integer> users = database.supply(() -> phase("users", () -> userRepository.getAllUsers().size()));
+        CompletableFuture<Integer> stores = database.supply(() -> phase("stores", () -> storeRepository.getAllStores().size()));
+
+        CompletableFuture.allOf(users, stores).whenComplete((ignored, throwable) -> {
+            phaseTimings.put("total", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (throwable != null) {
+                System.out.println("Cache warm-up failed, the caches will be loaded on first access: " + throwable.getMessage());
+                readiness.completeExceptionally(throwable);
+                return;
+            }
+            System.out.println("Cache warm-up done: " + users.join() + " users, " + stores.join() + " stores " + getPhaseTimings());
+            readiness.complete(null);
+        });
+        return readiness;
+    }
+
+    /**
+     * Get the future completed when the warm-up is done
+     * It completes exceptionally if a phase failed, in which case the caches are loaded on first access
+     *
+     * @return the readiness future
+     */
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * Check if the warm-up is done (successfully or not)
+     *
+     * @return true if the warm-up is done, false otherwise
+     */
+    public boolean isReady() {
+        return readiness.isDone();
+    }
+
+    /**
+     * Get the duration of each phase
+     *
+     * @return the read-only durations in milliseconds by phase name
+     */
+    public Map<String, Long> getPhaseTimings() {
+        synchronized (phaseTimings) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(phaseTimings));
+        }
+    }
+
+    /**
+     * Run a phase and record its duration
+     *
+     * @param name  the name of the phase
+     * @param phase the phase returning the number of loaded entries
+     * @return the number of loaded entries
+     */
+    private int phase(String name, Supplier<Integer> phase) {
+        long start = System.nanoTime();
+        int count = phase.get();
+        phaseTimings.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+}
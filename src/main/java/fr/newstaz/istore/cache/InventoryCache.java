@@ -0,0 +1,367 @@
+package fr.newstaz.istore.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.MapMaker;
+import fr.newstaz.istore.dao.InventoryDAO;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Inventory;
+import fr.newstaz.istore.model.InventoryItem;
+import fr.newstaz.istore.repository.InventoryRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryCache class to manage the inventory cache
+ * <p>
+ * Inventories are cached per store id with an index of their items by name.
+ * Item writes are applied to the database and to the cached inventory, which is the same instance
+ * as the one attached to the cached {@link fr.newstaz.istore.model.Store}.
+ * </p>
+ * <p>
+ * The cache must be able to hold the inventories of all the stores ({@code cache.inventory.max-size}).
+ * An inventory evicted or expired while a store still holds it is reloaded into that same instance,
+ * so the writes keep reaching the inventory shown by the store.
+ * </p>
+ *
+ * @version 1.0
+ * @see Inventory
+ * @see InventoryRepository
+ */
+public class InventoryCache implements InventoryRepository {
+
+    /**
+     * Cache of the inventories by store id
+     *
+     * @see Cache
+     */
+    private final Cache<Integer, Entry> inventories;
+
+    /**
+     * The inventories handed out by store id, kept as long as something (a cached store) references them
+     */
+    private final ConcurrentMap<Integer, Inventory> issued = new MapMaker().weakValues().makeMap();
+
+    /**
+     * Maximum number of cached inventories
+     */
+    private final long maximumSize;
+
+    /**
+     * InventoryDAO instance
+     *
+     * @see InventoryDAO
+     */
+    private final InventoryDAO inventoryDAO;
+
+    /**
+     * InventoryCache constructor
+     *
+     * @param database the database
+     */
+    public InventoryCache(Database database) {
+        this.maximumSize = database.getAppConfig().getInventoryCacheMaxSize();
+        this.inventories = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(database.getAppConfig().getInventoryCacheExpireAfter(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.inventoryDAO = new InventoryDAO(database);
+    }
+
+    /**
+     * Create an inventory
+     *
+     * @param inventory the inventory to create
+     */
+    @Override
+    public void createInventory(Inventory inventory) {
+        inventoryDAO.createInventory(inventory);
+
+        inventories.invalidate(inventory.getStoreId());
+    }
+
+    /**
+     * Get the inventory of a store (from the cache if possible)
+     *
+     * @param id the id of the store
+     * @return the inventory
+     */
+    @Override
+    public Inventory getInventory(int id) {
+        Entry entry = getEntry(id);
+        return entry == null ? null : entry.inventory;
+    }
+
+    /**
+     * Get all the inventories and cache them
+     * The inventories already handed out are refreshed in place and returned instead of the loaded ones
+     *
+     * @return the list of all inventories
+     */
+    @Override
+    public List<Inventory> getAllInventories() {
+        List<Inventory> allInventories = inventoryDAO.getAllInventories();
+        if (allInventories.size() > maximumSize) {
+            System.out.println("The inventory cache holds " + maximumSize + " inventories but there are " + allInventories.size()
+                    + " stores, raise cache.inventory.max-size");
+        }
+        for (int i = 0; i < allInventories.size(); i++) {
+            Entry entry = newEntry(allInventories.get(i));
+            inventories.put(entry.inventory.getStoreId(), entry);
+            allInventories.set(i, entry.inventory);
+        }
+        return allInventories;
+    }
+
+    /**
+     * Update an inventory
+     *
+     * @param inventory the inventory to update
+     */
+    @Override
+    public void updateInventory(Inventory inventory) {
+        inventoryDAO.updateInventory(inventory);
+
+        Entry entry = inventories.getIfPresent(inventory.getStoreId());
+        if (entry != null) {
+            for (InventoryItem item : inventory.getItems()) {
+                entry.inventory.putItem(item);
+            }
+        }
+    }
+
+    /**
+     * Delete an inventory
+     *
+     * @param inventory the inventory to delete
+     */
+    @Override
+    public void deleteInventory(Inventory inventory) {
+        if (inventory == null) {
+            return;
+        }
+        inventoryDAO.deleteInventory(inventory);
+
+        inventories.invalidate(inventory.getStoreId());
+    }
+
+    /**
+     * Get an item of the inventory of a store by name (from the cache if possible)
+     *
+     * @param storeId the id of the store
+     * @param name    the name of the item
+     * @return the item or null if not found
+     */
+    @Override
+    public InventoryItem getItem(int storeId, String name) {
+        Entry entry = getEntry(storeId);
+        return entry == null || name == null ? null : entry.getItem(name);
+    }
+
+    /**
+     * Add an item to an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to add
+     * @return the created item with its id
+     */
+    @Override
+    public InventoryItem addItemToInventory(Inventory inventory, InventoryItem item) {
+        InventoryItem newItem = inventoryDAO.addItemToInventory(inventory, item);
+
+        Entry entry = inventories.getIfPresent(inventory.getStoreId());
+        if (entry != null) {
+            entry.inventory.putItem(newItem);
+        }
+        return newItem;
+    }
+
+    /**
+     * Update an item in an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to update
+     */
+    @Override
+    public void updateItemInInventory(Inventory inventory, InventoryItem item) {
+        inventoryDAO.updateItemInInventory(inventory, item);
+
+        Entry entry = inventories.getIfPresent(inventory.getStoreId());
+        if (entry != null) {
+            entry.inventory.putItem(item);
+        }
+    }
+
+    /**
+     * Add a delta to the quantity of an item atomically
+     * The cached item takes the new quantity returned by the database
+     *
+     * @param inventory the inventory
+     * @param item      the item to adjust
+     * @param delta     the quantity to add (negative to remove)
+     * @return the new quantity or null if the item doesn't exist or the quantity would become negative
+     */
+    @Override
+    public Integer adjustQuantity(Inventory inventory, InventoryItem item, int delta) {
+        Integer quantity = inventoryDAO.adjustQuantity(inventory, item, delta);
+
+        Entry entry = inventories.getIfPresent(inventory.getStoreId());
+        if (entry != null && quantity != null) {
+            entry.inventory.setItemQuantity(item.getId(), quantity);
+        }
+        return quantity;
+    }
+
+    /**
+     * Delete an item from an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to delete
+     */
+    @Override
+    public void deleteItemFromInventory(Inventory inventory, InventoryItem item) {
+        inventoryDAO.deleteItemFromInventory(inventory, item);
+
+        Entry entry = inventories.getIfPresent(inventory.getStoreId());
+        if (entry != null) {
+            entry.inventory.removeItemById(item.getId());
+        }
+    }
+
+    /**
+     * Get the hit and miss statistics of the cache
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return inventories.stats();
+    }
+
+    /**
+     * Get the cache entry of a store, loading it from the database if needed
+     * Concurrent misses on the same store wait for a single load
+     *
+     * @param storeId the id of the store
+     * @return the cache entry or null if the store has no inventory
+     */
+    private Entry getEntry(int storeId) {
+        try {
+            return inventories.get(storeId, () -> loadEntry(storeId));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Load the cache entry of a store from the database
+     *
+     * @param storeId the id of the store
+     * @return the cache entry or null if the store has no inventory (not cached)
+     */
+    private Entry loadEntry(int storeId) {
+        Inventory inventory = inventoryDAO.getInventory(storeId);
+        if (inventory == null) {
+            return null;
+        }
+        return newEntry(inventory);
+    }
+
+    /**
+     * Create the cache entry of a loaded inventory, without its unnamed items
+     * If the inventory of the store was already handed out, that instance takes the loaded items
+     * (its list of items is swapped, never changed in place) and is cached instead
+     *
+     * @param loaded the loaded inventory
+     * @return the cache entry
+     */
+    private Entry newEntry(Inventory loaded) {
+        List<InventoryItem> items = loaded.getItems().stream().filter(item -> item.getName() != null).toList();
+        loaded.setItems(items);
+        Inventory inventory = issued.merge(loaded.getStoreId(), loaded, (current, fresh) -> {
+            if (current.getId() != fresh.getId()) {
+                return fresh;
+            }
+            current.setItems(items);
+            return current;
+        });
+        return new Entry(inventory);
+    }
+
+    /**
+     * Entry class holding a cached inventory and the index of its items by name
+     * <p>
+     * The items of an inventory are copied on write, so the index is rebuilt from the current list
+     * the first time it is read after a change: it can't go stale, even when several entries hold the same inventory.
+     * </p>
+     */
+    private static final class Entry {
+
+        /**
+         * The cached inventory
+         */
+        private final Inventory inventory;
+
+        /**
+         * The index of the items by name, with the list of items it was built from
+         */
+        private volatile ItemIndex index;
+
+        /**
+         * Constructor with the inventory
+         *
+         * @param inventory the inventory
+         */
+        private Entry(Inventory inventory) {
+            this.inventory = inventory;
+        }
+
+        /**
+         * Get an item by name
+         *
+         * @param name the name of the item
+         * @return the item or null if not found
+         */
+        private InventoryItem getItem(String name) {
+            List<InventoryItem> items = inventory.getItems();
+            ItemIndex index = this.index;
+            if (index == null || index.items() != items) {
+                index = new ItemIndex(items);
+                this.index = index;
+            }
+            return index.itemsByName().get(name);
+        }
+    }
+
+    /**
+     * ItemIndex record holding the items of an inventory indexed by name
+     *
+     * @param items       the indexed list of items
+     * @param itemsByName the items indexed by name
+     */
+    private record ItemIndex(List<InventoryItem> items, Map<String, InventoryItem> itemsByName) {
+
+        /**
+         * Constructor indexing a list of items
+         *
+         * @param items the list of items
+         */
+        private ItemIndex(List<InventoryItem> items) {
+            this(items, new HashMap<>(Math.max(16, items.size() * 2)));
+            for (InventoryItem item : items) {
+                if (item.getName() != null) {
+                    itemsByName.put(item.getName(), item);
+                }
+            }
+        }
+    }
+}
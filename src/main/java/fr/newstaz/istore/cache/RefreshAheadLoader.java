@@ -0,0 +1,182 @@
+package fr.newstaz.istore.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import fr.newstaz.istore.AppConfig;
+import fr.newstaz.istore.database.Database;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * RefreshAheadLoader class to load a cached snapshot and refresh it in the background
+ * <p>
+ * Once the refresh delay has elapsed, the next read gets the stale snapshot while the snapshot is reloaded
+ * on the database executor. Guava runs at most one reload per key at a time.
+ * The writes are queued on the executor too, so a reload may read the database before a write
+ * already applied to the cached snapshot. A reload started while a write was still in flight,
+ * or racing with a new write, therefore keeps the patched snapshot: the write is picked up by the next refresh.
+ * </p>
+ * <p>
+ * Guava counts a reload keeping the old snapshot as a new write, which would push back its expiration forever
+ * under steady writes. The loader thus records when each snapshot was read from the database:
+ * a snapshot older than the maximum staleness is never kept by a reload, and {@link #get(LoadingCache, String)}
+ * loads it again before serving it.
+ * </p>
+ *
+ * @param <V> the type of the snapshot
+ * @version 1.0
+ * @see UserCache
+ * @see StoreCache
+ */
+final class RefreshAheadLoader<V> extends CacheLoader<String, V> {
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * The query loading a new snapshot
+     */
+    private final Supplier<V> loader;
+
+    /**
+     * The maximum age of a served snapshot in nanoseconds
+     */
+    private final long maxStaleness;
+
+    /**
+     * The time each snapshot was read from the database, dropped with the snapshot
+     */
+    private final Map<V, Long> loadedAt = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * The number of writes applied to the cached snapshot
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * The number of writes applied to the cached snapshot but not written to the database yet
+     */
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    /**
+     * RefreshAheadLoader constructor
+     *
+     * @param database the database
+     * @param loader   the query loading a new snapshot
+     */
+    RefreshAheadLoader(Database database, Supplier<V> loader) {
+        this.database = database;
+        this.loader = loader;
+        this.maxStaleness = TimeUnit.MILLISECONDS.toNanos(database.getAppConfig().getCacheMaxStaleness());
+    }
+
+    /**
+     * Create a cache builder with the refresh and expiration delays of the configuration
+     *
+     * @param appConfig the application configuration
+     * @return the cache builder
+     */
+    static CacheBuilder<Object, Object> newCacheBuilder(AppConfig appConfig) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterWrite(appConfig.getCacheMaxStaleness(), TimeUnit.MILLISECONDS)
+                .expireAfterAccess(appConfig.getCacheExpireAfter(), TimeUnit.MILLISECONDS);
+        long refreshAfter = appConfig.getCacheRefreshAfter();
+        if (refreshAfter > 0) {
+            builder.refreshAfterWrite(refreshAfter, TimeUnit.MILLISECONDS);
+        }
+        return builder;
+    }
+
+    /**
+     * Record a write applied to the cached snapshot and already written to the database
+     */
+    void markWrite() {
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Record a write applied to the cached snapshot, in flight until its future completes
+     *
+     * @param write the future completed once the write is done in the database, successfully or not
+     */
+    void trackWrite(CompletableFuture<?> write) {
+        writes.incrementAndGet();
+        pendingWrites.incrementAndGet();
+        write.whenComplete((value, throwable) -> pendingWrites.decrementAndGet());
+    }
+
+    /**
+     * Get a snapshot from a cache, loading it again first if it is older than the maximum staleness
+     *
+     * @param cache the cache built with this loader
+     * @param key   the key of the snapshot
+     * @return the snapshot
+     */
+    V get(LoadingCache<String, V> cache, String key) {
+        V snapshot = cache.getUnchecked(key);
+        if (isExpired(snapshot)) {
+            cache.asMap().remove(key, snapshot);
+            snapshot = cache.getUnchecked(key);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public V load(String key) {
+        return loaded(loader.get());
+    }
+
+    @Override
+    public ListenableFuture<V> reload(String key, V oldValue) {
+        SettableFuture<V> future = SettableFuture.create();
+        long writesBefore = writes.get();
+        if (pendingWrites.get() > 0 && !isExpired(oldValue)) {
+            future.set(oldValue);
+            return future;
+        }
+        database.supply(loader).whenComplete((snapshot, throwable) -> {
+            if (throwable != null) {
+                future.setException(throwable);
+            } else {
+                boolean keepOld = writes.get() != writesBefore && !isExpired(oldValue);
+                future.set(keepOld ? oldValue : loaded(snapshot));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Record the time a snapshot was read from the database
+     *
+     * @param snapshot the snapshot
+     * @return the snapshot
+     */
+    private V loaded(V snapshot) {
+        loadedAt.put(snapshot, System.nanoTime());
+        return snapshot;
+    }
+
+    /**
+     * Check if a snapshot is older than the maximum staleness
+     *
+     * @param snapshot the snapshot
+     * @return true if the snapshot must be read again from the database, false otherwise
+     */
+    private boolean isExpired(V snapshot) {
+        Long time = loadedAt.get(snapshot);
+        return time != null && System.nanoTime() - time > maxStaleness;
+    }
+}
@@ -0,0 +1,180 @@
+package fr.newstaz.istore.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Snapshot class holding cached values indexed by id and by a unique key
+ * <p>
+ * Lookups by key are O(1) and lookups by id O(log n). Single-value changes are applied with {@link #put(Object)}
+ * and {@link #remove(Object)} instead of reloading the whole table: the snapshot is patched in place
+ * rather than copied, a copy per write costing as much as the reload it avoids.
+ * The values are kept ordered by id, so the read-only list returned by {@link #getValues()}
+ * is rebuilt after a change by a linear copy, without sorting.
+ * Substring searches on the key go through a {@link TrigramIndex} built with the snapshot,
+ * so by the load or the background refresh on the database executor, and kept in sync by the changes.
+ * </p>
+ *
+ * @param <T> the type of the cached values
+ * @version 1.0
+ * @see UserCache
+ * @see StoreCache
+ */
+public class Snapshot<T> {
+
+    /**
+     * The id of a value
+     */
+    private final ToIntFunction<T> idFunction;
+
+    /**
+     * The unique key of a value, null if the value has none
+     */
+    private final Function<T, String> keyFunction;
+
+    /**
+     * The values indexed and ordered by id
+     */
+    private final ConcurrentSkipListMap<Integer, T> valuesById = new ConcurrentSkipListMap<>();
+
+    /**
+     * The values indexed by key
+     */
+    private final Map<String, T> valuesByKey;
+
+    /**
+     * The index of the values by key
+     *
+     * @see #search(String, int)
+     */
+    private final TrigramIndex<T> keyIndex;
+
+    /**
+     * The read-only list of the values ordered by id (null when it must be rebuilt)
+     */
+    private volatile List<T> values;
+
+    /**
+     * Constructor with the loaded values
+     *
+     * @param values      the values
+     * @param idFunction  the id of a value
+     * @param keyFunction the unique key of a value, null if the value has none
+     */
+    public Snapshot(Collection<T> values, ToIntFunction<T> idFunction, Function<T, String> keyFunction) {
+        this.idFunction = idFunction;
+        this.keyFunction = keyFunction;
+        this.valuesByKey = new ConcurrentHashMap<>(Math.max(16, values.size() * 2));
+        for (T value : values) {
+            valuesById.put(idFunction.applyAsInt(value), value);
+            String key = keyFunction.apply(value);
+            if (key != null) {
+                valuesByKey.put(key, value);
+            }
+        }
+        this.keyIndex = new TrigramIndex<>(getValues(), idFunction, keyFunction);
+    }
+
+    /**
+     * Get a value by id
+     *
+     * @param id the id of the value
+     * @return the value or null if not found
+     */
+    public T getById(int id) {
+        return valuesById.get(id);
+    }
+
+    /**
+     * Get a value by key
+     *
+     * @param key the key of the value
+     * @return the value or null if not found
+     */
+    public T getByKey(String key) {
+        return key == null ? null : valuesByKey.get(key);
+    }
+
+    /**
+     * Get all the values ordered by id
+     *
+     * @return the read-only list of values
+     */
+    public List<T> getValues() {
+        List<T> values = this.values;
+        if (values == null) {
+            synchronized (this) {
+                values = this.values;
+                if (values == null) {
+                    values = List.copyOf(valuesById.values());
+                    this.values = values;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Find the values whose key contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of results
+     * @return the best ranked values, at most limit
+     * @see TrigramIndex#search(String, int)
+     */
+    public List<T> search(String text, int limit) {
+        return keyIndex.search(text, limit);
+    }
+
+    /**
+     * Get the number of values
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return valuesById.size();
+    }
+
+    /**
+     * Add or replace a value
+     *
+     * @param value the value
+     */
+    public synchronized void put(T value) {
+        T previous = valuesById.put(idFunction.applyAsInt(value), value);
+        String key = keyFunction.apply(value);
+        if (previous != null) {
+            String previousKey = keyFunction.apply(previous);
+            if (previousKey != null && !previousKey.equals(key)) {
+                valuesByKey.remove(previousKey, previous);
+            }
+        }
+        if (key != null) {
+            valuesByKey.put(key, value);
+        }
+        keyIndex.add(value);
+        values = null;
+    }
+
+    /**
+     * Remove a value
+     *
+     * @param value the value
+     */
+    public synchronized void remove(T value) {
+        T previous = valuesById.remove(idFunction.applyAsInt(value));
+        if (previous != null) {
+            String previousKey = keyFunction.apply(previous);
+            if (previousKey != null) {
+                valuesByKey.remove(previousKey, previous);
+            }
+        }
+        keyIndex.remove(value);
+        values = null;
+    }
+}
@@ -1,19 +1,27 @@
 package fr.newstaz.istore.cache;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
 import fr.newstaz.istore.dao.StoreDAO;
 import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Inventory;
 import fr.newstaz.istore.model.Store;
 import fr.newstaz.istore.model.User;
 import fr.newstaz.istore.repository.InventoryRepository;
 import fr.newstaz.istore.repository.StoreRepository;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * StoreCache class to manage the store cache
+ * <p>
+ * Writes are applied to the database and to the affected cached store only:
+ * a write never triggers a reload of the whole store graph.
+ * The store graph is refreshed in the background once the refresh delay has elapsed,
+ * reads keep being served from the previous snapshot meanwhile.
+ * </p>
  *
  * @version 1.0
  * @see Store
@@ -22,11 +30,29 @@ import java.util.concurrent.TimeUnit;
 public class StoreCache implements StoreRepository {
 
     /**
-     * Cache of the stores (default expiration time: 10 minutes)
+     * Key of the stores snapshot in the cache
+     */
+    private static final String STORES_KEY = "stores";
+
+    /**
+     * Cache of the stores snapshot indexed by id and name
+     *
+     * @see LoadingCache
+     * @see Snapshot
+     */
+    private final LoadingCache<String, Snapshot<Store>> stores;
+
+    /**
+     * The loader of the stores snapshot
      *
-     * @see Cache
+     * @see RefreshAheadLoader
      */
-    private final Cache<String, List<Store>> stores;
+    private final RefreshAheadLoader<Snapshot<Store>> loader;
+
+    /**
+     * Ids of the created stores whose inventory is not loaded yet
+     */
+    private final Set<Integer> pendingInventories = ConcurrentHashMap.newKeySet();
 
     /**
      * StoreDAO instance
@@ -35,6 +61,20 @@ public class StoreCache implements StoreRepository {
      */
     private final StoreDAO storeDAO;
 
+    /**
+     * InventoryRepository instance
+     *
+     * @see InventoryRepository
+     */
+    private final InventoryRepository inventoryRepository;
+
+    /**
+     * Database instance, running the writes so that their completion can be tracked
+     *
+     * @see Database
+     */
+    private final Database database;
+
     /**
      * StoreCache constructor
      *
@@ -42,15 +82,16 @@ public class StoreCache implements StoreRepository {
      * @param inventoryRepository the inventory repository
      */
     public StoreCache(Database database, InventoryRepository inventoryRepository) {
-        this.stores = CacheBuilder.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .build();
+        this.database = database;
         this.storeDAO = new StoreDAO(database, inventoryRepository);
+        this.loader = new RefreshAheadLoader<>(database, () -> new Snapshot<>(storeDAO.getAllStores(), Store::getId, Store::getName));
+        this.stores = RefreshAheadLoader.newCacheBuilder(database.getAppConfig()).build(loader);
+        this.inventoryRepository = inventoryRepository;
     }
 
     /**
      * Create a store
-     * Cache is invalidated after the creation
+     * The created store is added to the cache, its inventory is loaded on the next read
      *
      * @param store the store to create
      * @return the created store
@@ -59,7 +100,12 @@ public class StoreCache implements StoreRepository {
     public Store createStore(Store store) {
         Store newStore = storeDAO.createStore(store);
 
-        stores.invalidateAll();
+        Snapshot<Store> snapshot = stores.getIfPresent(STORES_KEY);
+        if (snapshot != null && newStore != null) {
+            snapshot.put(newStore);
+            pendingInventories.add(newStore.getId());
+            loader.markWrite();
+        }
 
         return newStore;
     }
@@ -72,56 +118,65 @@ public class StoreCache implements StoreRepository {
      */
     @Override
     public Store getStore(String name) {
-        List<Store> stores = this.stores.getIfPresent("stores");
-
-        if (stores == null) {
-            stores = storeDAO.getAllStores();
-
-            this.stores.put("stores", stores);
-        }
-
-        return stores.stream().filter(store -> store.getName().equals(name)).findFirst().orElse(null);
+        return getSnapshot().getByKey(name);
     }
 
     /**
      * Delete a store
-     * Cache is invalidated after the deletion
+     * The store is removed from the cache
      *
      * @param store the store to delete
      */
     @Override
     public void deleteStore(Store store) {
-        storeDAO.deleteStore(store);
+        CompletableFuture<Void> write = database.execute(() -> storeDAO.deleteStore(store)).exceptionally(Database::reportFailure);
 
-        stores.invalidateAll();
+        Snapshot<Store> snapshot = stores.getIfPresent(STORES_KEY);
+        if (snapshot != null) {
+            snapshot.remove(store);
+        }
+        pendingInventories.remove(store.getId());
+        loader.trackWrite(write);
     }
 
     /**
      * Get all the stores (from the cache if possible)
      *
-     * @return the list of stores
+     * @return the read-only list of stores
      */
     @Override
     public List<Store> getAllStores() {
-        List<Store> stores = this.stores.getIfPresent("stores");
-        if (stores == null) {
-            stores = storeDAO.getAllStores();
-            this.stores.put("stores", stores);
-        }
-        return stores;
+        return getSnapshot().getValues();
+    }
+
+    /**
+     * Search the stores whose name contains a text, ignoring case (from the cache if possible)
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of stores
+     * @return the matching stores, best matches first
+     */
+    @Override
+    public List<Store> searchStores(String text, int limit) {
+        return getSnapshot().search(text, limit);
     }
 
     /**
      * Add an employee to a store
-     * Cache is invalidated after the addition
+     * The employee is added to the cached store
      *
      * @param store the store
      * @param user  the user to add
      */
     @Override
     public void addEmployee(Store store, User user) {
-        storeDAO.addEmployee(store, user);
-        stores.invalidateAll();
+        CompletableFuture<Void> write = database.execute(() -> storeDAO.addEmployee(store, user)).exceptionally(Database::reportFailure);
+
+        Store cachedStore = getCachedStore(store);
+        if (cachedStore != null) {
+            cachedStore.addEmployee(user);
+        }
+        loader.trackWrite(write);
     }
 
     /**
@@ -133,12 +188,8 @@ public class StoreCache implements StoreRepository {
      */
     @Override
     public boolean isEmployeeAlreadyAdded(User user, Store store) {
-        List<Store> storesCache = stores.getIfPresent("stores");
-        if (storesCache == null) {
-            storesCache = storeDAO.getAllStores();
-            stores.put("stores", storesCache);
-        }
-        return storesCache.stream().anyMatch(s -> s.getId() == store.getId() && s.getEmployees().stream().anyMatch(e -> e.getId() == user.getId()));
+        Store cachedStore = getSnapshot().getById(store.getId());
+        return cachedStore != null && cachedStore.getEmployees().stream().anyMatch(e -> e.getId() == user.getId());
     }
 
     /**
@@ -154,16 +205,20 @@ public class StoreCache implements StoreRepository {
 
     /**
      * Remove an employee from a store
-     * Cache is invalidated after the removal
+     * The employee is removed from the cached store
      *
      * @param store the store
      * @param user  the user to remove
      */
     @Override
     public void removeEmployee(Store store, User user) {
-        storeDAO.removeEmployee(store, user);
+        CompletableFuture<Void> write = database.execute(() -> storeDAO.removeEmployee(store, user)).exceptionally(Database::reportFailure);
 
-        stores.invalidateAll();
+        Store cachedStore = getCachedStore(store);
+        if (cachedStore != null) {
+            cachedStore.removeEmployee(user);
+        }
+        loader.trackWrite(write);
     }
 
     @Override
@@ -181,4 +236,47 @@ public class StoreCache implements StoreRepository {
     public void removeEmployeePermission(Store store, User user) {
         storeDAO.removeEmployeePermission(store, user);
     }
+
+    @Override
+    public List<Integer> getPermittedStoreIds(User user) {
+        return storeDAO.getPermittedStoreIds(user);
+    }
+
+    /**
+     * Get the cached instance of a store without loading the cache
+     *
+     * @param store the store
+     * @return the cached store or null if the cache is not loaded
+     */
+    private Store getCachedStore(Store store) {
+        Snapshot<Store> snapshot = stores.getIfPresent(STORES_KEY);
+        return snapshot == null ? null : snapshot.getById(store.getId());
+    }
+
+    /**
+     * Get the stores snapshot, loading it from the database if needed
+     * Concurrent misses wait for a single load of the snapshot
+     * The inventories of the stores created since the load are resolved one by one
+     * (a store already loaded with its inventory by a refresh is resolved from the inventory cache)
+     *
+     * @return the stores snapshot
+     */
+    private Snapshot<Store> getSnapshot() {
+        Snapshot<Store> snapshot = loader.get(stores, STORES_KEY);
+
+        for (Integer storeId : pendingInventories) {
+            Store store = snapshot.getById(storeId);
+            if (store == null) {
+                pendingInventories.remove(storeId);
+                continue;
+            }
+            Inventory inventory = inventoryRepository.getInventory(storeId);
+            if (inventory != null) {
+                store.setInventory(inventory);
+                pendingInventories.remove(storeId);
+            }
+        }
+
+        return snapshot;
+    }
 }
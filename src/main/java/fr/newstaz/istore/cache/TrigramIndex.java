@@ -0,0 +1,354 @@
+package fr.newstaz.istore.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * TrigramIndex class to answer case-insensitive substring queries without scanning every value
+ * <p>
+ * Each value is indexed under the trigrams (3 consecutive characters) of its lowercased text.
+ * A query is answered by intersecting the sorted id lists of its trigrams, then checking that
+ * the remaining candidates really contain the query. Queries shorter than a trigram scan the
+ * lowercased texts kept by the index.
+ * </p>
+ * <p>
+ * Results are ranked by position of the match (texts starting with the query first),
+ * then by text length and finally by id.
+ * </p>
+ *
+ * @param <T> the type of the indexed values
+ * @version 1.0
+ * @see Snapshot
+ */
+public class TrigramIndex<T> {
+
+    /**
+     * The number of characters of a gram
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The id of a value
+     */
+    private final ToIntFunction<T> idFunction;
+
+    /**
+     * The indexed text of a value
+     */
+    private final Function<T, String> textFunction;
+
+    /**
+     * The indexed values and their lowercased text by id
+     */
+    private final Map<Integer, Entry<T>> entries = new HashMap<>();
+
+    /**
+     * The sorted ids of the values by trigram
+     */
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Lock allowing concurrent queries and exclusive changes
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor with the indexed values
+     *
+     * @param values       the values, preferably ordered by id
+     * @param idFunction   the id of a value
+     * @param textFunction the indexed text of a value
+     */
+    public TrigramIndex(Collection<T> values, ToIntFunction<T> idFunction, Function<T, String> textFunction) {
+        this.idFunction = idFunction;
+        this.textFunction = textFunction;
+        for (T value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Add or replace a value
+     *
+     * @param value the value
+     */
+    public void add(T value) {
+        lock.writeLock().lock();
+        try {
+            int id = idFunction.applyAsInt(value);
+            Entry<T> previous = entries.get(id);
+            if (previous != null) {
+                removeGrams(id, previous.text());
+            }
+            String text = normalize(textFunction.apply(value));
+            entries.put(id, new Entry<>(id, value, text));
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                postings.computeIfAbsent(gram(text, i), gram -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a value
+     *
+     * @param value the value
+     */
+    public void remove(T value) {
+        lock.writeLock().lock();
+        try {
+            int id = idFunction.applyAsInt(value);
+            Entry<T> previous = entries.remove(id);
+            if (previous != null) {
+                removeGrams(id, previous.text());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed values
+     *
+     * @return the number of indexed values
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the values whose text contains a query, ignoring case
+     *
+     * @param query the text to search
+     * @param limit the maximum number of results
+     * @return the best ranked values, at most limit
+     */
+    public List<T> search(String query, int limit) {
+        String text = normalize(query);
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        Comparator<Entry<T>> ranking = ranking(text);
+        PriorityQueue<Entry<T>> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, ranking.reversed());
+
+        lock.readLock().lock();
+        try {
+            if (text.length() < GRAM_LENGTH) {
+                for (Entry<T> entry : entries.values()) {
+                    if (entry.text().contains(text)) {
+                        offer(best, entry, limit, ranking);
+                    }
+                }
+            } else {
+                int[] candidates = candidates(text);
+                for (int id : candidates) {
+                    Entry<T> entry = entries.get(id);
+                    if (entry != null && entry.text().contains(text)) {
+                        offer(best, entry, limit, ranking);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Entry<T>> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        List<T> results = new ArrayList<>(ranked.size());
+        for (Entry<T> entry : ranked) {
+            results.add(entry.value());
+        }
+        return results;
+    }
+
+    /**
+     * Get the ids of the values containing every trigram of a query
+     *
+     * @param text the normalized query (at least one trigram long)
+     * @return the sorted candidate ids
+     */
+    private int[] candidates(String text) {
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            Postings list = postings.get(gram(text, i));
+            if (list == null) {
+                return new int[0];
+            }
+            if (!lists.contains(list)) {
+                lists.add(list);
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings smallest = lists.get(0);
+        int[] candidates = Arrays.copyOf(smallest.ids, smallest.size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            Postings list = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (list.contains(candidates[j])) {
+                    candidates[kept++] = candidates[j];
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Keep an entry if it is among the best ranked ones
+     *
+     * @param best    the best ranked entries, worst first
+     * @param entry   the entry
+     * @param limit   the maximum number of entries
+     * @param ranking the ranking of the entries
+     */
+    private void offer(PriorityQueue<Entry<T>> best, Entry<T> entry, int limit, Comparator<Entry<T>> ranking) {
+        if (best.size() < limit) {
+            best.add(entry);
+        } else if (ranking.compare(entry, best.peek()) < 0) {
+            best.poll();
+            best.add(entry);
+        }
+    }
+
+    /**
+     * Remove an id from the postings of the trigrams of a text
+     *
+     * @param id   the id
+     * @param text the normalized text
+     */
+    private void removeGrams(int id, String text) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            long gram = gram(text, i);
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Get the ranking of the entries matching a query
+     *
+     * @param text the normalized query
+     * @return the comparator, best entries first
+     */
+    private static <T> Comparator<Entry<T>> ranking(String text) {
+        return Comparator.<Entry<T>>comparingInt(entry -> entry.text().indexOf(text))
+                .thenComparingInt(entry -> entry.text().length())
+                .thenComparingInt(Entry::id);
+    }
+
+    /**
+     * Lowercase a text for indexing and querying
+     *
+     * @param text the text (may be null)
+     * @return the normalized text
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Encode the trigram of a text at a position
+     *
+     * @param text  the text
+     * @param index the position of the trigram
+     * @return the trigram packed in a long
+     */
+    private static long gram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Entry record of an indexed value
+     *
+     * @param id    the id of the value
+     * @param value the value
+     * @param text  the lowercased text of the value
+     * @param <T>   the type of the value
+     */
+    private record Entry<T>(int id, T value, String text) {
+    }
+
+    /**
+     * Postings class holding a sorted list of ids without duplicates
+     */
+    private static final class Postings {
+
+        /**
+         * The ids, sorted in the first size slots
+         */
+        private int[] ids = new int[4];
+
+        /**
+         * The number of ids
+         */
+        private int size;
+
+        /**
+         * Add an id (appended when ids are added in increasing order)
+         *
+         * @param id the id
+         */
+        private void add(int id) {
+            int index = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        /**
+         * Remove an id
+         *
+         * @param id the id
+         * @return true if the id was removed, false if it was missing
+         */
+        private boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Check if an id is in the list
+         *
+         * @param id the id
+         * @return true if the id is in the list, false otherwise
+         */
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
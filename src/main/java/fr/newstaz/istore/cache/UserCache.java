@@ -1,17 +1,20 @@
 package fr.newstaz.istore.cache;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
 import fr.newstaz.istore.dao.UserDAO;
 import fr.newstaz.istore.database.Database;
 import fr.newstaz.istore.model.User;
 import fr.newstaz.istore.repository.UserRepository;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * UserCache class to manage the user cache
+ * <p>
+ * The users snapshot is refreshed in the background once the refresh delay has elapsed,
+ * reads keep being served from the previous snapshot meanwhile.
+ * </p>
  *
  * @version 1.0
  * @see User
@@ -20,11 +23,24 @@ import java.util.concurrent.TimeUnit;
 public class UserCache implements UserRepository {
 
     /**
-     * Cache of the users (default expiration time: 10 minutes)
+     * Key of the users snapshot in the cache
+     */
+    private static final String USERS_KEY = "users";
+
+    /**
+     * Cache of the users snapshot indexed by id and email
      *
-     * @see Cache
+     * @see LoadingCache
+     * @see Snapshot
      */
-    private final Cache<String, List<User>> users;
+    private final LoadingCache<String, Snapshot<User>> users;
+
+    /**
+     * The loader of the users snapshot
+     *
+     * @see RefreshAheadLoader
+     */
+    private final RefreshAheadLoader<Snapshot<User>> loader;
 
     /**
      * UserDAO instance
@@ -33,30 +49,43 @@ public class UserCache implements UserRepository {
      */
     private final UserDAO userDAO;
 
+    /**
+     * Database instance, running the writes so that their completion can be tracked
+     *
+     * @see Database
+     */
+    private final Database database;
+
     /**
      * UserCache constructor
      *
      * @param database the database
      */
     public UserCache(Database database) {
-        this.users = CacheBuilder.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .build();
+        this.database = database;
         this.userDAO = new UserDAO(database);
-
+        this.loader = new RefreshAheadLoader<>(database, () -> new Snapshot<>(userDAO.getAllUsers(), User::getId, User::getEmail));
+        this.users = RefreshAheadLoader.newCacheBuilder(database.getAppConfig()).build(loader);
     }
 
     /**
      * Create a user
-     * Cache is invalidated after the creation
+     * Once inserted, the user is read back with its generated id and added to the cached snapshot
+     * without reloading the other users
      *
      * @param user the user to create
      */
     @Override
     public void createUser(User user) {
-        userDAO.createUser(user);
-
-        users.invalidateAll();
+        loader.trackWrite(database.supply(() -> {
+            userDAO.createUser(user);
+            return userDAO.getUser(user.getEmail());
+        }).thenAccept(createdUser -> {
+            Snapshot<User> snapshot = users.getIfPresent(USERS_KEY);
+            if (snapshot != null && createdUser != null) {
+                snapshot.put(createdUser);
+            }
+        }).exceptionally(Database::reportFailure));
     }
 
     /**
@@ -67,15 +96,7 @@ public class UserCache implements UserRepository {
      */
     @Override
     public User getUser(int id) {
-        List<User> users = this.users.getIfPresent("users");
-
-        if (users == null) {
-            users = userDAO.getAllUsers();
-
-            this.users.put("users", users);
-        }
-
-        return users.stream().filter(user -> user.getId() == id).findFirst().orElse(null);
+        return getSnapshot().getById(id);
     }
 
     /**
@@ -86,15 +107,7 @@ public class UserCache implements UserRepository {
      */
     @Override
     public User getUser(String login) {
-        List<User> users = this.users.getIfPresent("users");
-
-        if (users == null) {
-            users = userDAO.getAllUsers();
-
-            this.users.put("users", users);
-        }
-
-        return users.stream().filter(user -> user.getEmail().equals(login)).findFirst().orElse(null);
+        return getSnapshot().getByKey(login);
     }
 
     /**
@@ -110,45 +123,67 @@ public class UserCache implements UserRepository {
 
     /**
      * Update a user
-     * Cache is invalidated after the update
+     * The cached user is replaced without reloading the other users
      *
      * @param user the user to update
      */
     @Override
     public void updateUser(User user) {
-        userDAO.updateUser(user);
+        CompletableFuture<Void> write = database.execute(() -> userDAO.updateUser(user)).exceptionally(Database::reportFailure);
 
-        users.invalidateAll();
+        Snapshot<User> snapshot = users.getIfPresent(USERS_KEY);
+        if (snapshot != null) {
+            snapshot.put(user);
+        }
+        loader.trackWrite(write);
     }
 
     /**
      * Delete a user
-     * Cache is invalidated after the deletion
+     * The cached user is removed without reloading the other users
      *
      * @param user the user to delete
      */
     @Override
     public void deleteUser(User user) {
-        userDAO.deleteUser(user);
+        CompletableFuture<Void> write = database.execute(() -> userDAO.deleteUser(user)).exceptionally(Database::reportFailure);
 
-        users.invalidateAll();
+        Snapshot<User> snapshot = users.getIfPresent(USERS_KEY);
+        if (snapshot != null) {
+            snapshot.remove(user);
+        }
+        loader.trackWrite(write);
     }
 
     /**
      * Get all the users (from the cache if possible)
      *
-     * @return the list of users
+     * @return the read-only list of users
      */
     @Override
     public List<User> getAllUsers() {
-        List<User> users = this.users.getIfPresent("users");
-
-        if (users == null) {
-            users = userDAO.getAllUsers();
+        return getSnapshot().getValues();
+    }
 
-            this.users.put("users", users);
-        }
+    /**
+     * Search the users whose email contains a text, ignoring case (from the cache if possible)
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of users
+     * @return the matching users, best matches first
+     */
+    @Override
+    public List<User> searchUsers(String text, int limit) {
+        return getSnapshot().search(text, limit);
+    }
 
-        return users;
+    /**
+     * Get the users snapshot, loading it from the database if needed
+     * Concurrent misses wait for a single load of the snapshot
+     *
+     * @return the users snapshot
+     */
+    private Snapshot<User> getSnapshot() {
+        return loader.get(users, USERS_KEY);
     }
 }
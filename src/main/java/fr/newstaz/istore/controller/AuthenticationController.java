@@ -5,7 +5,12 @@ import fr.newstaz.istore.repository.Repository;
 import fr.newstaz.istore.response.LoginResponse;
 import fr.newstaz.istore.response.RegisterResponse;
 import fr.newstaz.istore.response.UserResponse;
-import org.mindrot.jbcrypt.BCrypt;
+import fr.newstaz.istore.security.LoginRateLimiter;
+import fr.newstaz.istore.security.PasswordHasher;
+import fr.newstaz.istore.security.Session;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AuthenticationController class to manage the authentication
@@ -32,78 +37,161 @@ public class AuthenticationController {
     private final UserController userController;
 
     /**
-     * The logged user
+     * PasswordHasher instance
+     *
+     * @see PasswordHasher
+     */
+    private final PasswordHasher passwordHasher;
+
+    /**
+     * LoginRateLimiter instance, checked before any user lookup or password verification
+     *
+     * @see LoginRateLimiter
+     */
+    private final LoginRateLimiter loginRateLimiter;
+
+    /**
+     * The session of the logged user (set from the database executor)
+     *
+     * @see #getSession()
      */
-    private User loggedUser;
+    private volatile Session session;
 
     /**
      * AuthenticationController constructor
      *
      * @param repository     the repository
      * @param userController the user controller
+     * @param passwordHasher the password hasher
      */
-    public AuthenticationController(Repository repository, UserController userController) {
+    public AuthenticationController(Repository repository, UserController userController, PasswordHasher passwordHasher) {
+        this(repository, userController, passwordHasher, new LoginRateLimiter());
+    }
+
+    /**
+     * AuthenticationController constructor
+     *
+     * @param repository       the repository
+     * @param userController   the user controller
+     * @param passwordHasher   the password hasher
+     * @param loginRateLimiter the login rate limiter
+     */
+    public AuthenticationController(Repository repository, UserController userController, PasswordHasher passwordHasher,
+                                    LoginRateLimiter loginRateLimiter) {
         this.repository = repository;
         this.userController = userController;
+        this.passwordHasher = passwordHasher;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     /**
-     * Register a user
+     * Register a user, waiting for its password to be hashed
      *
      * @param email    the email of the user
      * @param password the password of the user
      * @return the register response
+     * @see #registerAsync(String, String)
      */
     public RegisterResponse register(String email, String password) {
-        UserResponse.CreateUserResponse response = userController.createUser(new User(email, password, User.Role.USER));
-        if (!response.success()) {
-            return new RegisterResponse(false, response.message());
-        }
-        return new RegisterResponse(true, "User created");
+        return registerAsync(email, password).join();
+    }
+
+    /**
+     * Register a user once its password is hashed by the {@link PasswordHasher}
+     *
+     * @param email    the email of the user
+     * @param password the password of the user
+     * @return the future of the register response
+     */
+    public CompletableFuture<RegisterResponse> registerAsync(String email, String password) {
+        return userController.createUserAsync(new User(email, password, User.Role.USER)).thenApply(response -> {
+            if (!response.success()) {
+                return new RegisterResponse(false, response.message());
+            }
+            return new RegisterResponse(true, "User created");
+        });
     }
 
     /**
-     * Login a user
+     * Login a user, waiting for its password to be verified
      *
      * @param email    the email of the user
      * @param password the password of the user
      * @return the login response
+     * @see #loginAsync(String, String)
      */
     public LoginResponse login(String email, String password) {
+        return loginAsync(email, password).join();
+    }
+
+    /**
+     * Login a user once its password is verified by the {@link PasswordHasher}
+     * A successful login issues the {@link Session} of the user with its store permissions,
+     * read on the database executor rather than on the password hashing threads,
+     * and a hash made with a lower cost is replaced in the background.
+     * Attempts over the limits of the {@link LoginRateLimiter} are rejected without reaching BCrypt
+     *
+     * @param email    the email of the user
+     * @param password the password of the user
+     * @return the future of the login response
+     */
+    public CompletableFuture<LoginResponse> loginAsync(String email, String password) {
         if (email == null || email.isEmpty()) {
-            return new LoginResponse(false, "Email is empty");
+            return CompletableFuture.completedFuture(new LoginResponse(false, "Email is empty"));
         }
 
         if (password == null || password.isEmpty()) {
-            return new LoginResponse(false, "Password is empty");
+            return CompletableFuture.completedFuture(new LoginResponse(false, "Password is empty"));
+        }
+
+        long retryAfter = loginRateLimiter.tryAcquire(email);
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(new LoginResponse(false,
+                    "Too many attempts, try again in " + TimeUnit.MILLISECONDS.toSeconds(retryAfter + 999) + "s"));
         }
 
         User user = repository.getUserRepository().getUser(email);
 
         if (user == null) {
-            return new LoginResponse(false, "User not found");
+            loginRateLimiter.recordFailure(email);
+            return CompletableFuture.completedFuture(new LoginResponse(false, "User not found"));
         }
 
-        String hashedPassword = user.getPassword();
+        return passwordHasher.verify(password, user.getPassword()).thenCompose(matches -> {
+            if (!matches) {
+                loginRateLimiter.recordFailure(email);
+                return CompletableFuture.completedFuture(new LoginResponse(false, "Wrong password"));
+            }
 
-        if (!BCrypt.checkpw(password, hashedPassword)) {
-            return new LoginResponse(false, "Wrong password");
-        }
+            loginRateLimiter.recordSuccess(email);
 
-        if (!user.isVerified()) {
-            return new LoginResponse(false, "User is not verified");
-        }
+            if (!user.isVerified()) {
+                return CompletableFuture.completedFuture(new LoginResponse(false, "User is not verified"));
+            }
 
-        loggedUser = user;
-        return new LoginResponse(true, "User logged in");
+            return repository.getAsyncStoreRepository().getPermittedStoreIds(user).thenApply(storeIds -> {
+                session = new Session(user, storeIds);
+                userController.rehashPassword(user, password);
+                return new LoginResponse(true, "User logged in");
+            });
+        }).exceptionally(throwable -> new LoginResponse(false, PasswordHasher.failureMessage(throwable)));
+    }
+
+    /**
+     * Get the login rate limiter, with its rejection counters
+     *
+     * @return the login rate limiter
+     */
+    public LoginRateLimiter getLoginRateLimiter() {
+        return loginRateLimiter;
     }
 
     /**
-     * Get the logged user
+     * Get the session of the logged user, answering the authorization checks without repository lookups
      *
-     * @return the logged user
+     * @return the session, or null if no user is logged in
      */
-    public User getLoggedUser() {
-        return loggedUser;
+    public Session getSession() {
+        return session;
     }
 }
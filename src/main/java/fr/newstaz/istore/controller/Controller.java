@@ -1,6 +1,9 @@
 package fr.newstaz.istore.controller;
 
+import fr.newstaz.istore.cache.CacheWarmUp;
 import fr.newstaz.istore.repository.Repository;
+import fr.newstaz.istore.security.LoginRateLimiter;
+import fr.newstaz.istore.security.PasswordHasher;
 
 /**
  * Controller class to manage the controllers
@@ -34,14 +37,51 @@ public class Controller {
     private final StoreController storeController;
 
     /**
-     * Controller constructor
+     * CacheWarmUp instance
+     *
+     * @see CacheWarmUp
+     */
+    private final CacheWarmUp warmUp;
+
+    /**
+     * PasswordHasher instance
+     *
+     * @see PasswordHasher
+     */
+    private final PasswordHasher passwordHasher;
+
+    /**
+     * Controller constructor with a password hasher using one thread per core
      *
      * @param repository the repository
      */
     public Controller(Repository repository) {
-        this.userController = new UserController(repository);
-        this.authenticationController = new AuthenticationController(repository, userController);
+        this(repository, new PasswordHasher());
+    }
+
+    /**
+     * Controller constructor with the default login limits
+     *
+     * @param repository     the repository
+     * @param passwordHasher the password hasher
+     */
+    public Controller(Repository repository, PasswordHasher passwordHasher) {
+        this(repository, passwordHasher, new LoginRateLimiter());
+    }
+
+    /**
+     * Controller constructor
+     *
+     * @param repository       the repository
+     * @param passwordHasher   the password hasher
+     * @param loginRateLimiter the login rate limiter
+     */
+    public Controller(Repository repository, PasswordHasher passwordHasher, LoginRateLimiter loginRateLimiter) {
+        this.passwordHasher = passwordHasher;
+        this.userController = new UserController(repository, passwordHasher);
+        this.authenticationController = new AuthenticationController(repository, userController, passwordHasher, loginRateLimiter);
         this.storeController = new StoreController(repository);
+        this.warmUp = repository.getWarmUp();
     }
 
     /**
@@ -70,4 +110,22 @@ public class Controller {
     public StoreController getStoreController() {
         return storeController;
     }
+
+    /**
+     * Get the warm-up of the caches, whose readiness the UI can wait on
+     *
+     * @return the cache warm-up
+     */
+    public CacheWarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Get the password hasher, with its latency histograms
+     *
+     * @return the password hasher
+     */
+    public PasswordHasher getPasswordHasher() {
+        return passwordHasher;
+    }
 }
@@ -1,5 +1,6 @@
 package fr.newstaz.istore.controller;
 
+import fr.newstaz.istore.database.Database;
 import fr.newstaz.istore.model.Inventory;
 import fr.newstaz.istore.model.InventoryItem;
 import fr.newstaz.istore.model.Store;
@@ -8,6 +9,7 @@ import fr.newstaz.istore.repository.Repository;
 import fr.newstaz.istore.response.StoreResponse;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
 /**
@@ -19,6 +21,11 @@ import java.util.function.Predicate;
  */
 public class StoreController {
 
+    /**
+     * The maximum number of stores returned by a search
+     */
+    public static final int SEARCH_LIMIT = 100;
+
     /**
      * Repository instance
      *
@@ -108,12 +115,27 @@ public class StoreController {
 
     /**
      * Search stores
+     * An empty text lists every store, otherwise the best {@link #SEARCH_LIMIT} matches are returned
      *
      * @param text the text to search
      * @return the stores
      */
     public List<Store> searchStores(String text) {
-        return getAllStore(user -> user.getName().toLowerCase().contains(text.toLowerCase()));
+        if (text == null || text.isBlank()) {
+            return getAllStores();
+        }
+        return searchStores(text, SEARCH_LIMIT);
+    }
+
+    /**
+     * Search the stores whose name contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of stores
+     * @return the stores, best matches first
+     */
+    public List<Store> searchStores(String text, int limit) {
+        return repository.getStoreRepository().searchStores(text, limit);
     }
 
     /**
@@ -163,7 +185,7 @@ public class StoreController {
         if (repository.getStoreRepository().getStore(store.getName()) == null) {
             return new StoreResponse.CreateInventoryItemResponse(false, "Store not found");
         }
-        if (repository.getInventoryRepository().getInventory(store.getId()).getItems().stream().filter(inventoryItem -> inventoryItem.getName() != null).anyMatch(inventoryItem -> inventoryItem.getName().equals(name))) {
+        if (repository.getInventoryRepository().getItem(store.getId(), name) != null) {
             return new StoreResponse.CreateInventoryItemResponse(false, "Inventory item already exists");
         }
         repository.getInventoryRepository().addItemToInventory(store.getInventory(), new InventoryItem(0, name, price, quantity));
@@ -171,7 +193,9 @@ public class StoreController {
     }
 
     /**
-     * Update an inventory item
+     * Update an inventory item, writing its quantity as is
+     * Stock changes should go through {@link #adjustInventoryItem(Store, InventoryItem, int)},
+     * which can't overwrite a concurrent change of the quantity
      *
      * @param store         the store
      * @param inventoryItem the inventory item
@@ -182,7 +206,7 @@ public class StoreController {
         if (repository.getStoreRepository().getStore(store.getName()) == null) {
             return new StoreResponse.UpdateInventoryItemResponse(false, "Store not found");
         }
-        if (repository.getInventoryRepository().getInventory(store.getId()).getItems().stream().filter(inventoryItem1 -> inventoryItem1.getName() != null).noneMatch(inventoryItem1 -> inventoryItem1.getName().equals(inventoryItem.getName()))) {
+        if (repository.getInventoryRepository().getItem(store.getId(), inventoryItem.getName()) == null) {
             return new StoreResponse.UpdateInventoryItemResponse(false, "Inventory item not found");
         }
         repository.getInventoryRepository().updateItemInInventory(store.getInventory(), new InventoryItem(inventoryItem.getId(), inventoryItem.getName(), inventoryItem.getPrice(), quantity));
@@ -200,13 +224,49 @@ public class StoreController {
         if (repository.getStoreRepository().getStore(store.getName()) == null) {
             return new StoreResponse.DeleteInventoryItemResponse(false, "Store not found");
         }
-        if (repository.getInventoryRepository().getInventory(store.getId()).getItems().stream().filter(inventoryItem1 -> inventoryItem1.getName() != null).noneMatch(inventoryItem1 -> inventoryItem1.getName().equals(inventoryItem.getName()))) {
+        if (repository.getInventoryRepository().getItem(store.getId(), inventoryItem.getName()) == null) {
             return new StoreResponse.DeleteInventoryItemResponse(false, "Inventory item not found");
         }
         repository.getInventoryRepository().deleteItemFromInventory(store.getInventory(), new InventoryItem(inventoryItem.getId(), inventoryItem.getName(), inventoryItem.getPrice(), inventoryItem.getQuantity()));
         return new StoreResponse.DeleteInventoryItemResponse(true, "Inventory item deleted");
     }
 
+    /**
+     * Add a delta to the quantity of an inventory item without reading it first, waiting for the database
+     *
+     * @param store         the store
+     * @param inventoryItem the inventory item
+     * @param delta         the quantity to add (negative to remove)
+     * @return the adjust inventory item response with the new quantity
+     * @see #adjustInventoryItemAsync(Store, InventoryItem, int)
+     */
+    public StoreResponse.AdjustInventoryItemResponse adjustInventoryItem(Store store, InventoryItem inventoryItem, int delta) {
+        return adjustInventoryItemAsync(store, inventoryItem, delta).join();
+    }
+
+    /**
+     * Add a delta to the quantity of an inventory item without reading it first, on the database executor
+     *
+     * @param store         the store
+     * @param inventoryItem the inventory item
+     * @param delta         the quantity to add (negative to remove)
+     * @return the future of the adjust inventory item response with the new quantity
+     */
+    public CompletableFuture<StoreResponse.AdjustInventoryItemResponse> adjustInventoryItemAsync(Store store, InventoryItem inventoryItem, int delta) {
+        if (store.getInventory() == null) {
+            return CompletableFuture.completedFuture(new StoreResponse.AdjustInventoryItemResponse(false, "Inventory not found", inventoryItem.getQuantity()));
+        }
+        return repository.getAsyncInventoryRepository().adjustQuantity(store.getInventory(), inventoryItem, delta).thenApply(quantity -> {
+            if (quantity == null) {
+                return new StoreResponse.AdjustInventoryItemResponse(false, "Not enough stock or item not found", inventoryItem.getQuantity());
+            }
+            return new StoreResponse.AdjustInventoryItemResponse(true, "Inventory item updated", quantity);
+        }).exceptionally(throwable -> {
+            Database.reportFailure(throwable);
+            return new StoreResponse.AdjustInventoryItemResponse(false, "Inventory item not updated", inventoryItem.getQuantity());
+        });
+    }
+
     public StoreResponse.AddPermissionResponse addPermission(Store store, User user) {
         if (repository.getStoreRepository().getStore(store.getName()) == null) {
             return new StoreResponse.AddPermissionResponse(false, "Store not found");
@@ -3,10 +3,12 @@ package fr.newstaz.istore.controller;
 import fr.newstaz.istore.model.User;
 import fr.newstaz.istore.repository.Repository;
 import fr.newstaz.istore.response.UserResponse;
+import fr.newstaz.istore.security.PasswordHasher;
 import fr.newstaz.istore.validator.UserValidator;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 
 /**
@@ -18,6 +20,11 @@ import java.util.function.Predicate;
  */
 public class UserController {
 
+    /**
+     * The maximum number of users returned by a search
+     */
+    public static final int SEARCH_LIMIT = 100;
+
     /**
      * Repository instance
      *
@@ -25,35 +32,79 @@ public class UserController {
      */
     private final Repository repository;
 
+    /**
+     * PasswordHasher instance
+     *
+     * @see PasswordHasher
+     */
+    private final PasswordHasher passwordHasher;
+
     /**
      * UserController constructor
      *
-     * @param repository the repository
+     * @param repository     the repository
+     * @param passwordHasher the password hasher
      */
-    public UserController(Repository repository) {
+    public UserController(Repository repository, PasswordHasher passwordHasher) {
         this.repository = repository;
+        this.passwordHasher = passwordHasher;
     }
 
     /**
-     * Create a user
+     * Create a user, waiting for its password to be hashed
      *
      * @param user the user to create
      * @return the create user response
+     * @see #createUserAsync(User)
      */
     public UserResponse.CreateUserResponse createUser(User user) {
+        return createUserAsync(user).join();
+    }
+
+    /**
+     * Create a user once its password is hashed by the {@link PasswordHasher}
+     *
+     * @param user the user to create
+     * @return the future of the create user response
+     */
+    public CompletableFuture<UserResponse.CreateUserResponse> createUserAsync(User user) {
         UserResponse userResponse = validateUser(user);
         if (!userResponse.success()) {
-            return new UserResponse.CreateUserResponse(false, userResponse.message());
+            return CompletableFuture.completedFuture(new UserResponse.CreateUserResponse(false, userResponse.message()));
         }
 
         if (repository.getUserRepository().getUser(user.getEmail()) != null) {
-            return new UserResponse.CreateUserResponse(false, "User already exists");
+            return CompletableFuture.completedFuture(new UserResponse.CreateUserResponse(false, "User already exists"));
         }
 
-        user.setPassword(BCrypt.hashpw(user.getPassword(), BCrypt.gensalt()));
+        return passwordHasher.hash(user.getPassword()).thenApply(passwordHash -> {
+            user.setPassword(passwordHash);
+            repository.getUserRepository().createUser(user);
+            return new UserResponse.CreateUserResponse(true, "User created");
+        }).exceptionally(throwable -> new UserResponse.CreateUserResponse(false, PasswordHasher.failureMessage(throwable)));
+    }
 
-        repository.getUserRepository().createUser(user);
-        return new UserResponse.CreateUserResponse(true, "User created");
+    /**
+     * Hash again the password of a user whose hash was made with a lower cost than the policy
+     * The new hash is computed in the background and failures are ignored, the next login trying again
+     *
+     * @param user     the user
+     * @param password the clear password, already verified against the hash of the user
+     * @return the future completed once the user is updated (or not)
+     * @see PasswordHasher#needsRehash(String)
+     */
+    public CompletableFuture<Void> rehashPassword(User user, String password) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return passwordHasher.hash(password).thenAccept(passwordHash -> {
+            User rehashedUser = new User(user);
+            rehashedUser.setPassword(passwordHash);
+            repository.getUserRepository().updateUser(rehashedUser);
+        }).exceptionally(throwable -> {
+            System.out.println("Password of " + user.getEmail() + " not rehashed: " + PasswordHasher.failureMessage(throwable));
+            return null;
+        });
     }
 
     /**
@@ -77,24 +128,82 @@ public class UserController {
 
     /**
      * Search users
+     * An empty text lists every user, otherwise the best {@link #SEARCH_LIMIT} matches are returned
      *
      * @param text the text to search
      * @return the list of users
      */
     public List<User> searchUsers(String text) {
-        return getAllUsers(user -> user.getEmail().toLowerCase().contains(text.toLowerCase()));
+        if (text == null || text.isBlank()) {
+            return getAllUsers();
+        }
+        return searchUsers(text, SEARCH_LIMIT);
+    }
+
+    /**
+     * Search the users whose email contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of users
+     * @return the list of users, best matches first
+     */
+    public List<User> searchUsers(String text, int limit) {
+        return repository.getUserRepository().searchUsers(text, limit);
+    }
+
+    /**
+     * Search users on the database executor, keeping the caller (usually the UI thread) free
+     * An empty text lists every user, otherwise the best {@link #SEARCH_LIMIT} matches are returned
+     *
+     * @param text the text to search
+     * @return the future of the list of users
+     */
+    public CompletableFuture<List<User>> searchUsersAsync(String text) {
+        if (text == null || text.isBlank()) {
+            return repository.getAsyncUserRepository().getAllUsers();
+        }
+        return repository.getAsyncUserRepository().searchUsers(text, SEARCH_LIMIT);
     }
 
     /**
-     * Edit a user
+     * Search users on the database executor, skipping the query if it is cancelled while still queued
+     *
+     * @param text      the text to search
+     * @param cancelled whether the search is superseded, checked when it starts on the executor
+     * @return the future of the list of users, failed with a {@link java.util.concurrent.CancellationException} if cancelled
+     * @see #searchUsersAsync(String)
+     */
+    public CompletableFuture<List<User>> searchUsersAsync(String text, BooleanSupplier cancelled) {
+        if (text == null || text.isBlank()) {
+            return repository.getAsyncUserRepository().getAllUsers(cancelled);
+        }
+        return repository.getAsyncUserRepository().searchUsers(text, SEARCH_LIMIT, cancelled);
+    }
+
+    /**
+     * Edit a user, waiting for its password to be hashed
      *
      * @param user     the user to edit
      * @param email    the new email
      * @param password the new password
      * @param role     the new role
      * @return the edit user response
+     * @see #editUserAsync(User, String, String, User.Role)
      */
     public UserResponse.EditUserResponse editUser(User user, String email, String password, User.Role role) {
+        return editUserAsync(user, email, password, role).join();
+    }
+
+    /**
+     * Edit a user once its password is hashed by the {@link PasswordHasher}
+     *
+     * @param user     the user to edit
+     * @param email    the new email
+     * @param password the new password
+     * @param role     the new role
+     * @return the future of the edit user response
+     */
+    public CompletableFuture<UserResponse.EditUserResponse> editUserAsync(User user, String email, String password, User.Role role) {
         User newUser = new User(user);
         newUser.setEmail(email);
         newUser.setPassword(password);
@@ -102,16 +211,18 @@ public class UserController {
         UserResponse userResponse = validateUser(newUser);
 
         if (!userResponse.success()) {
-            return new UserResponse.EditUserResponse(false, userResponse.message());
+            return CompletableFuture.completedFuture(new UserResponse.EditUserResponse(false, userResponse.message()));
         }
 
         if (repository.getUserRepository().getUser(email) != null && !email.equals(user.getEmail())) {
-            return new UserResponse.EditUserResponse(false, "User already exists");
+            return CompletableFuture.completedFuture(new UserResponse.EditUserResponse(false, "User already exists"));
         }
 
-        newUser.setPassword(BCrypt.hashpw(newUser.getPassword(), BCrypt.gensalt()));
-        repository.getUserRepository().updateUser(newUser);
-        return new UserResponse.EditUserResponse(true, "User edited");
+        return passwordHasher.hash(newUser.getPassword()).thenApply(passwordHash -> {
+            newUser.setPassword(passwordHash);
+            repository.getUserRepository().updateUser(newUser);
+            return new UserResponse.EditUserResponse(true, "User edited");
+        }).exceptionally(throwable -> new UserResponse.EditUserResponse(false, PasswordHasher.failureMessage(throwable)));
     }
 
     /**
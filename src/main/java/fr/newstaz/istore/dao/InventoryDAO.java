@@ -9,6 +9,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * InventoryDAO class to manage the inventory DAO
@@ -27,54 +33,85 @@ public class InventoryDAO implements InventoryRepository {
     private final Database database;
 
     /**
-     * InventoryDAO constructor
+     * Buffer of the item updates
+     *
+     * @see InventoryWriteBehind
+     */
+    private final InventoryWriteBehind writeBehind;
+
+    /**
+     * InventoryDAO constructor with the buffer of the database
      *
      * @param database the database
+     * @see InventoryWriteBehind#of(Database)
      */
     public InventoryDAO(Database database) {
+        this(database, InventoryWriteBehind.of(database));
+    }
+
+    /**
+     * InventoryDAO constructor
+     *
+     * @param database    the database
+     * @param writeBehind the buffer of the item updates, shared by the DAOs of the database
+     */
+    public InventoryDAO(Database database, InventoryWriteBehind writeBehind) {
         this.database = database;
-        createTable();
+        this.writeBehind = writeBehind;
     }
 
     /**
      * Create an inventory
+     * The id is generated by the database when the inventory has none (id 0)
      *
      * @param inventory the inventory to create
      */
     @Override
     public void createInventory(Inventory inventory) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO inventory (id, store_id) VALUES (?, ?)")) {
-                statement.setInt(1, inventory.getId());
-                statement.setInt(2, inventory.getStoreId());
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
+            try (Connection connection = database.getConnection()) {
+                int inventoryId = inventory.getId();
+                if (inventoryId == 0) {
+                    try (PreparedStatement statement = connection.prepareStatement("INSERT INTO inventory (store_id) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                        statement.setInt(1, inventory.getStoreId());
+                        statement.executeUpdate();
+
+                        ResultSet generatedKeys = statement.getGeneratedKeys();
+                        inventoryId = generatedKeys.next() ? generatedKeys.getInt(1) : 0;
+                    }
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement("INSERT INTO inventory (id, store_id) VALUES (?, ?)")) {
+                        statement.setInt(1, inventoryId);
+                        statement.setInt(2, inventory.getStoreId());
+                        statement.executeUpdate();
+                    }
+                }
 
-            for (InventoryItem item : inventory.getItems()) {
-                try {
-                    createInventoryItem(connection, inventory.getId(), item);
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
+                for (InventoryItem item : inventory.getItems()) {
+                    createInventoryItem(connection, inventoryId, item);
                 }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
      * Get an inventory by id
+     * The buffered item updates are written first, so the inventory reflects them
+     * (if the database can't be reached meanwhile they stay buffered and the inventory is read anyway)
      *
      * @param id the id of the inventory
      * @return the inventory
      */
     @Override
     public Inventory getInventory(int id) {
-        Connection connection = database.getConnection();
+        writeBehind.flushQuietly();
+
         Inventory inventory = null;
 
-        try (PreparedStatement statement = connection.prepareStatement(
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
                 "SELECT * FROM inventory " +
                         "LEFT JOIN inventory_items ON inventory.id = inventory_items.inventory_id " +
                         "WHERE inventory.store_id = ?")) {
@@ -83,6 +120,7 @@ public class InventoryDAO implements InventoryRepository {
 
             if (resultSet.next()) {
                 inventory = new Inventory(resultSet.getInt("inventory.id"), resultSet.getInt("inventory.store_id"));
+                List<InventoryItem> items = new ArrayList<>();
 
                 do {
                     InventoryItem item = new InventoryItem(
@@ -91,8 +129,9 @@ public class InventoryDAO implements InventoryRepository {
                             resultSet.getInt("inventory_items.price")
                     );
                     item.setQuantity(resultSet.getInt("inventory_items.quantity"));
-                    inventory.addItem(item);
+                    items.add(item);
                 } while (resultSet.next());
+                inventory.setItems(items);
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -102,23 +141,66 @@ public class InventoryDAO implements InventoryRepository {
         return inventory;
     }
 
+    /**
+     * Get all the inventories with their items in a single query
+     * The buffered item updates are written first, so the inventories reflect them
+     * (if the database can't be reached meanwhile they stay buffered and the inventories are read anyway)
+     *
+     * @return the list of all inventories
+     */
+    @Override
+    public List<Inventory> getAllInventories() {
+        writeBehind.flushQuietly();
+
+        Map<Integer, Inventory> inventories = new LinkedHashMap<>();
+        Map<Integer, List<InventoryItem>> items = new HashMap<>();
+
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT * FROM inventory " +
+                             "LEFT JOIN inventory_items ON inventory.id = inventory_items.inventory_id")) {
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                int inventoryId = resultSet.getInt("inventory.id");
+                Inventory inventory = inventories.get(inventoryId);
+                if (inventory == null) {
+                    inventory = new Inventory(inventoryId, resultSet.getInt("inventory.store_id"));
+                    inventories.put(inventoryId, inventory);
+                }
+
+                int itemId = resultSet.getInt("inventory_items.id");
+                if (resultSet.wasNull()) {
+                    continue;
+                }
+                InventoryItem item = new InventoryItem(
+                        itemId,
+                        resultSet.getString("inventory_items.name"),
+                        resultSet.getInt("inventory_items.price")
+                );
+                item.setQuantity(resultSet.getInt("inventory_items.quantity"));
+                items.computeIfAbsent(inventoryId, id -> new ArrayList<>()).add(item);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        items.forEach((inventoryId, inventoryItems) -> inventories.get(inventoryId).setItems(inventoryItems));
+
+        return new ArrayList<>(inventories.values());
+    }
+
     /**
      * Update an inventory
+     * The item updates are buffered and written in batch
      *
      * @param inventory the inventory to update
+     * @see InventoryWriteBehind
      */
     @Override
     public void updateInventory(Inventory inventory) {
-        Connection connection = database.getConnection();
-        database.execute(() -> {
-            for (InventoryItem item : inventory.getItems()) {
-                try {
-                    updateInventoryItem(connection, inventory.getId(), item);
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        });
+        for (InventoryItem item : inventory.getItems()) {
+            writeBehind.update(inventory.getId(), item);
+        }
     }
 
     /**
@@ -128,65 +210,151 @@ public class InventoryDAO implements InventoryRepository {
      */
     @Override
     public void deleteInventory(Inventory inventory) {
-        Connection connection = database.getConnection();
+        writeBehind.discardInventory(inventory.getId());
         database.execute(() -> {
-            try (PreparedStatement deleteItemsStatement = connection.prepareStatement("DELETE FROM inventory_items WHERE inventory_id = ?")) {
-                deleteItemsStatement.setInt(1, inventory.getId());
-                deleteItemsStatement.executeUpdate();
+            try (Connection connection = database.getConnection()) {
+                try (PreparedStatement deleteItemsStatement = connection.prepareStatement("DELETE FROM inventory_items WHERE inventory_id = ?")) {
+                    deleteItemsStatement.setInt(1, inventory.getId());
+                    deleteItemsStatement.executeUpdate();
+                }
+                try (PreparedStatement deleteInventoryStatement = connection.prepareStatement("DELETE FROM inventory WHERE id = ?")) {
+                    deleteInventoryStatement.setInt(1, inventory.getId());
+                    deleteInventoryStatement.executeUpdate();
+                }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-            try (PreparedStatement deleteInventoryStatement = connection.prepareStatement("DELETE FROM inventory WHERE id = ?")) {
-                deleteInventoryStatement.setInt(1, inventory.getId());
-                deleteInventoryStatement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+        }).exceptionally(Database::reportFailure);
+    }
+
+    /**
+     * Get an item of the inventory of a store by name
+     *
+     * @param storeId the id of the store
+     * @param name    the name of the item
+     * @return the item or null if not found
+     */
+    @Override
+    public InventoryItem getItem(int storeId, String name) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT inventory_items.* FROM inventory_items " +
+                             "JOIN inventory ON inventory.id = inventory_items.inventory_id " +
+                             "WHERE inventory.store_id = ? AND inventory_items.name = ?")) {
+            statement.setInt(1, storeId);
+            statement.setString(2, name);
+            ResultSet resultSet = statement.executeQuery();
+
+            if (resultSet.next()) {
+                return new InventoryItem(
+                        resultSet.getInt("id"),
+                        resultSet.getString("name"),
+                        resultSet.getInt("price"),
+                        resultSet.getInt("quantity")
+                );
             }
-        });
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return null;
     }
 
     /**
      * Add an item to an inventory
+     * The item is inserted synchronously to return its generated id
      *
      * @param inventory the inventory
      * @param item      the item to add
+     * @return the created item with its id
      */
     @Override
-    public void addItemToInventory(Inventory inventory, InventoryItem item) {
-        Connection connection = database.getConnection();
-        database.execute(() -> {
-            try {
-                createInventoryItem(connection, inventory.getId(), item);
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-        });
+    public InventoryItem addItemToInventory(Inventory inventory, InventoryItem item) {
+        try (Connection connection = database.getConnection()) {
+            int id = createInventoryItem(connection, inventory.getId(), item);
+            return new InventoryItem(id, item.getName(), item.getPrice(), item.getQuantity());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
      * Update an item in an inventory
+     * The update is buffered and written in batch
      *
      * @param inventory the inventory
      * @param item      the item to update
+     * @see InventoryWriteBehind
      */
     @Override
     public void updateItemInInventory(Inventory inventory, InventoryItem item) {
-        Connection connection = database.getConnection();
-        database.execute(() -> {
+        writeBehind.update(inventory.getId(), item);
+    }
+
+    /**
+     * Add a delta to the quantity of an item atomically
+     * <p>
+     * The pending buffered updates are written first so that they can't overwrite the adjustment.
+     * The update and the read of the new quantity run in the same transaction.
+     * </p>
+     *
+     * @param inventory the inventory
+     * @param item      the item to adjust
+     * @param delta     the quantity to add (negative to remove)
+     * @return the new quantity or null if the item doesn't exist or the quantity would become negative
+     */
+    @Override
+    public Integer adjustQuantity(Inventory inventory, InventoryItem item, int delta) {
+        try {
+            writeBehind.flush();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
             try {
-                updateInventoryItem(connection, inventory.getId(), item);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE inventory_items SET quantity = quantity + ? " +
+                                "WHERE inventory_id = ? AND id = ? AND quantity + ? >= 0")) {
+                    statement.setInt(1, delta);
+                    statement.setInt(2, inventory.getId());
+                    statement.setInt(3, item.getId());
+                    statement.setInt(4, delta);
+                    if (statement.executeUpdate() == 0) {
+                        connection.rollback();
+                        return null;
+                    }
+                }
+
+                Integer quantity = null;
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT quantity FROM inventory_items WHERE inventory_id = ? AND id = ?")) {
+                    statement.setInt(1, inventory.getId());
+                    statement.setInt(2, item.getId());
+                    ResultSet resultSet = statement.executeQuery();
+                    if (resultSet.next()) {
+                        quantity = resultSet.getInt("quantity");
+                    }
+                }
+                connection.commit();
+                return quantity;
             } catch (SQLException e) {
-                throw new RuntimeException(e);
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
-        });
-
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
     public void deleteItemFromInventory(Inventory inventory, InventoryItem item) {
-        Connection connection = database.getConnection();
+        writeBehind.discardItem(item.getId());
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement(
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
                     "DELETE FROM inventory_items WHERE inventory_id = ? AND id = ?")) {
                 statement.setInt(1, inventory.getId());
                 statement.setInt(2, item.getId());
@@ -194,40 +362,8 @@ public class InventoryDAO implements InventoryRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
-
-    }
-
-    /**
-     * Create the inventory table
-     */
-    private void createTable() {
-        Connection connection = database.getConnection();
-        database.execute(() -> {
-            try {
-                connection.createStatement().executeUpdate(
-                        "CREATE TABLE IF NOT EXISTS inventory (id INTEGER PRIMARY KEY AUTO_INCREMENT, store_id INTEGER)"
-                );
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-            }
+        }).exceptionally(Database::reportFailure);
 
-            try {
-                connection.createStatement().executeUpdate(
-                        "CREATE TABLE IF NOT EXISTS inventory_items (" +
-                                "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-                                "inventory_id INTEGER, " +
-                                "name VARCHAR(255), " +
-                                "price INTEGER, " +
-                                "quantity INTEGER, " +
-                                "FOREIGN KEY (inventory_id) REFERENCES inventory(id))"
-                );
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-            }
-        });
     }
 
     /**
@@ -236,37 +372,21 @@ public class InventoryDAO implements InventoryRepository {
      * @param connection  the connection
      * @param inventoryId the inventory id
      * @param item        the item to create
+     * @return the generated id of the item
      * @throws SQLException if a database access error occurs
      */
-    private void createInventoryItem(Connection connection, int inventoryId, InventoryItem item) throws SQLException {
+    private int createInventoryItem(Connection connection, int inventoryId, InventoryItem item) throws SQLException {
         try (PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO inventory_items (inventory_id, name, price, quantity) VALUES (?, ?, ?, ?)")) {
+                "INSERT INTO inventory_items (inventory_id, name, price, quantity) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
             statement.setInt(1, inventoryId);
             statement.setString(2, item.getName());
             statement.setInt(3, item.getPrice());
             statement.setInt(4, item.getQuantity());
             statement.executeUpdate();
-        }
-    }
 
-    /**
-     * Update an inventory item
-     *
-     * @param connection  the connection
-     * @param inventoryId the inventory id
-     * @param item        the item to update
-     * @throws SQLException if a database access error occurs
-     */
-    private void updateInventoryItem(Connection connection, int inventoryId, InventoryItem item) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "UPDATE inventory_items SET name = ?, price = ?, quantity = ? " +
-                        "WHERE inventory_id = ? AND id = ?")) {
-            statement.setString(1, item.getName());
-            statement.setInt(2, item.getPrice());
-            statement.setInt(3, item.getQuantity());
-            statement.setInt(4, inventoryId);
-            statement.setInt(5, item.getId());
-            statement.executeUpdate();
+            ResultSet generatedKeys = statement.getGeneratedKeys();
+            return generatedKeys.next() ? generatedKeys.getInt(1) : 0;
         }
     }
 }
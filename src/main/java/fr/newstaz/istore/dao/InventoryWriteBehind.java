@@ -0,0 +1,390 @@
+package fr.newstaz.istore.dao;
+
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.InventoryItem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * InventoryWriteBehind class to buffer and batch the inventory item updates
+ * <p>
+ * Updates are kept by item id, so repeated updates of the same item are merged and only the last one is written.
+ * The buffer is flushed in a single transaction with a JDBC batch when it reaches the batch size,
+ * every flush interval, and when the database is closed.
+ * </p>
+ * <p>
+ * When the database can't be reached the updates are put back in the buffer and retried by the next flush.
+ * When the batch fails for another reason (a constraint violation for instance) the updates are written
+ * one by one, and the ones still failing are dropped to the {@link #getDeadLetters() dead letters}
+ * instead of blocking the buffer forever.
+ * </p>
+ * <p>
+ * A database has a single buffer, shared by all its {@link InventoryDAO}s through {@link #of(Database)},
+ * so the flush done before a read sees the updates buffered by any of them.
+ * </p>
+ *
+ * @version 1.0
+ * @see InventoryDAO
+ */
+public class InventoryWriteBehind {
+
+    /**
+     * The update statement of an item
+     */
+    private static final String UPDATE_ITEM = "UPDATE inventory_items SET name = ?, price = ?, quantity = ? WHERE inventory_id = ? AND id = ?";
+
+    /**
+     * The maximum number of dead letters kept, the oldest ones being dropped first
+     */
+    private static final int MAX_DEAD_LETTERS = 1_000;
+
+    /**
+     * The buffer of each open database
+     */
+    private static final Map<Database, InventoryWriteBehind> BUFFERS = new ConcurrentHashMap<>();
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * The number of buffered updates triggering a flush
+     */
+    private final int batchSize;
+
+    /**
+     * The pending updates by item id
+     */
+    private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The updates that could not be written, oldest first
+     */
+    private final Queue<DeadLetter> deadLetters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Lock ensuring flushes are written one after the other
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Whether a size-triggered flush is already scheduled
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * The executor of the time-triggered flushes
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * InventoryWriteBehind constructor
+     *
+     * @param database            the database
+     * @param batchSize           the number of buffered updates triggering a flush
+     * @param flushIntervalMillis the maximum time an update stays buffered in milliseconds
+     */
+    public InventoryWriteBehind(Database database, int batchSize, long flushIntervalMillis) {
+        this.database = database;
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "istore-inventory-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        database.onClose(this::close);
+    }
+
+    /**
+     * Get the buffer of a database, creating it with the batch size and flush interval of the configuration if needed
+     *
+     * @param database the database
+     * @return the buffer of the database
+     */
+    public static InventoryWriteBehind of(Database database) {
+        return BUFFERS.computeIfAbsent(database, key -> {
+            InventoryWriteBehind writeBehind = new InventoryWriteBehind(
+                    key,
+                    key.getAppConfig().getInventoryWriteBehindBatchSize(),
+                    key.getAppConfig().getInventoryWriteBehindFlushInterval()
+            );
+            key.onClose(() -> BUFFERS.remove(key, writeBehind));
+            return writeBehind;
+        });
+    }
+
+    /**
+     * Buffer the update of an item, replacing any pending update of the same item
+     * A flush is scheduled once the buffer reaches the batch size, a rejected flush being left to the next update or interval
+     *
+     * @param inventoryId the id of the inventory
+     * @param item        the item to update
+     */
+    public void update(int inventoryId, InventoryItem item) {
+        pending.put(item.getId(), new PendingUpdate(inventoryId, item.getId(), item.getName(), item.getPrice(), item.getQuantity()));
+
+        if (pending.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            database.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            }).whenComplete((ignored, throwable) -> flushScheduled.set(false)).exceptionally(Database::reportFailure);
+        }
+    }
+
+    /**
+     * Drop the pending update of an item
+     *
+     * @param itemId the id of the item
+     */
+    public void discardItem(int itemId) {
+        pending.remove(itemId);
+    }
+
+    /**
+     * Drop the pending updates of an inventory
+     *
+     * @param inventoryId the id of the inventory
+     */
+    public void discardInventory(int inventoryId) {
+        pending.values().removeIf(update -> update.inventoryId() == inventoryId);
+    }
+
+    /**
+     * Get the number of pending updates
+     *
+     * @return the number of pending updates
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Get the updates that could not be written
+     *
+     * @return the dead letters, oldest first
+     */
+    public List<DeadLetter> getDeadLetters() {
+        return List.copyOf(deadLetters);
+    }
+
+    /**
+     * Write all the pending updates in one transaction
+     * <p>
+     * If the database can't be reached the updates are put back in the buffer, unless a newer update
+     * was buffered meanwhile, and the failure is thrown. If the batch fails for another reason
+     * the updates are written one by one and the failing ones are dropped to the dead letters.
+     * </p>
+     *
+     * @throws SQLException if the database can't be reached
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            List<PendingUpdate> updates = new ArrayList<>(pending.size());
+            for (PendingUpdate update : pending.values()) {
+                if (pending.remove(update.itemId(), update)) {
+                    updates.add(update);
+                }
+            }
+            if (updates.isEmpty()) {
+                return;
+            }
+
+            Connection connection;
+            try {
+                connection = database.getConnection();
+            } catch (SQLException e) {
+                requeue(updates);
+                throw e;
+            }
+
+            try (connection) {
+                try {
+                    writeBatch(connection, updates);
+                    return;
+                } catch (SQLException e) {
+                    if (isRetryable(e)) {
+                        requeue(updates);
+                        throw e;
+                    }
+                    System.out.println("Batch of " + updates.size() + " inventory updates failed (" + e.getMessage() + "), writing them one by one");
+                } catch (RuntimeException e) {
+                    System.out.println("Batch of " + updates.size() + " inventory updates failed (" + e + "), writing them one by one");
+                }
+                writeOneByOne(connection, updates);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stop the time-triggered flushes and write the pending updates
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        flushQuietly();
+        if (!pending.isEmpty()) {
+            System.out.println(pending.size() + " inventory updates could not be written on close");
+        }
+    }
+
+    /**
+     * Flush the pending updates and print the failure if any
+     * Used before the reads, which must not fail because the buffer can't be written
+     */
+    void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.out.println(pending.size() + " inventory updates kept in the buffer, the database can't be reached: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write updates in one transaction with a JDBC batch
+     *
+     * @param connection the connection
+     * @param updates    the updates to write
+     * @throws SQLException if the batch fails (the transaction is rolled back)
+     */
+    private static void writeBatch(Connection connection, List<PendingUpdate> updates) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_ITEM)) {
+            for (PendingUpdate update : updates) {
+                bind(statement, update);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Write updates one by one, dropping the failing ones to the dead letters
+     *
+     * @param connection the connection
+     * @param updates    the updates to write
+     * @throws SQLException if the database can't be reached (the updates not written yet are put back in the buffer)
+     */
+    private void writeOneByOne(Connection connection, List<PendingUpdate> updates) throws SQLException {
+        for (int i = 0; i < updates.size(); i++) {
+            PendingUpdate update = updates.get(i);
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_ITEM)) {
+                bind(statement, update);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                if (isRetryable(e)) {
+                    requeue(updates.subList(i, updates.size()));
+                    throw e;
+                }
+                deadLetter(update, e);
+            } catch (RuntimeException e) {
+                deadLetter(update, e);
+            }
+        }
+    }
+
+    /**
+     * Set the parameters of the update statement
+     *
+     * @param statement the update statement
+     * @param update    the update
+     * @throws SQLException if a parameter can't be set
+     */
+    private static void bind(PreparedStatement statement, PendingUpdate update) throws SQLException {
+        statement.setString(1, update.name());
+        statement.setInt(2, update.price());
+        statement.setInt(3, update.quantity());
+        statement.setInt(4, update.inventoryId());
+        statement.setInt(5, update.itemId());
+    }
+
+    /**
+     * Put updates back in the buffer, unless a newer update of the same item was buffered meanwhile
+     *
+     * @param updates the updates
+     */
+    private void requeue(List<PendingUpdate> updates) {
+        for (PendingUpdate update : updates) {
+            pending.putIfAbsent(update.itemId(), update);
+        }
+    }
+
+    /**
+     * Drop an update that can't be written to the dead letters
+     *
+     * @param update  the update
+     * @param failure the failure of the update
+     */
+    private void deadLetter(PendingUpdate update, Exception failure) {
+        deadLetters.add(new DeadLetter(update.inventoryId(), update.itemId(), update.name(), update.price(), update.quantity(), failure.toString()));
+        while (deadLetters.size() > MAX_DEAD_LETTERS) {
+            deadLetters.poll();
+        }
+        System.out.println("Inventory update of item " + update.itemId() + " dropped: " + failure);
+    }
+
+    /**
+     * Check if a failure comes from the database being unreachable or busy rather than from the data
+     *
+     * @param e the failure
+     * @return true if the same updates can succeed later, false otherwise
+     */
+    private static boolean isRetryable(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("40"));
+    }
+
+    /**
+     * DeadLetter record holding an update that could not be written
+     *
+     * @param inventoryId the id of the inventory
+     * @param itemId      the id of the item
+     * @param name        the name of the item
+     * @param price       the price of the item
+     * @param quantity    the quantity of the item
+     * @param failure     the failure of the update
+     */
+    public record DeadLetter(int inventoryId, int itemId, String name, int price, int quantity, String failure) {
+    }
+
+    /**
+     * PendingUpdate record holding the last state of an item to write
+     *
+     * @param inventoryId the id of the inventory
+     * @param itemId      the id of the item
+     * @param name        the name of the item
+     * @param price       the price of the item
+     * @param quantity    the quantity of the item
+     */
+    private record PendingUpdate(int inventoryId, int itemId, String name, int price, int quantity) {
+    }
+}
@@ -1,6 +1,7 @@
 package fr.newstaz.istore.dao;
 
 import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.model.Inventory;
 import fr.newstaz.istore.model.Store;
 import fr.newstaz.istore.model.User;
 import fr.newstaz.istore.repository.InventoryRepository;
@@ -10,8 +11,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * StoreDAO class to manage the store DAO
@@ -39,25 +45,27 @@ public class StoreDAO implements StoreRepository {
     public StoreDAO(Database database, InventoryRepository inventoryRepository) {
         this.database = database;
         this.inventoryRepository = inventoryRepository;
-        createTable();
     }
 
     /**
      * Create a store
+     * The generated id is read from the insert, without querying the store back
      *
      * @param store the store to create
      * @return the created store
      */
     @Override
     public Store createStore(Store store) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO stores (name) VALUES (?)")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO stores (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
             statement.setString(1, store.getName());
             statement.executeUpdate();
+
+            ResultSet generatedKeys = statement.getGeneratedKeys();
+            return generatedKeys.next() ? new Store(generatedKeys.getInt(1), store.getName()) : getStore(store.getName());
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return getStore(store.getName());
     }
 
     /**
@@ -68,8 +76,8 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public Store getStore(String name) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores WHERE name = ?")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores WHERE name = ?")) {
             statement.setString(1, name);
             ResultSet resultSet = statement.executeQuery();
             if (resultSet.next()) {
@@ -91,45 +99,101 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public void deleteStore(Store store) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM stores WHERE id = ?")) {
-                statement.setInt(1, store.getId());
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-            }
+            try (Connection connection = database.getConnection()) {
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM stores WHERE id = ?")) {
+                    statement.setInt(1, store.getId());
+                    statement.executeUpdate();
+                }
 
-            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM stores_employee WHERE store_id = ?")) {
-                statement.setInt(1, store.getId());
-                statement.executeUpdate();
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM stores_employee WHERE store_id = ?")) {
+                    statement.setInt(1, store.getId());
+                    statement.executeUpdate();
+                }
             } catch (SQLException e) {
                 e.printStackTrace();
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
-     * Get all stores
+     * Get all stores with their inventory and employees
+     * <p>
+     * The whole graph is loaded with three queries (stores, inventories and employees)
+     * whatever the number of stores, then assembled in memory.
+     * </p>
      *
      * @return the list of stores
      */
     @Override
     public List<Store> getAllStores() {
-        Connection connection = database.getConnection();
+        Map<Integer, Store> stores = new LinkedHashMap<>();
+        Map<Integer, List<User>> employees = new HashMap<>();
+        try (Connection connection = database.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores")) {
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    Store store = new Store(
+                            resultSet.getInt("id"),
+                            resultSet.getString("name")
+                    );
+                    stores.put(store.getId(), store);
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT se.store_id, u.* FROM stores_employee se " +
+                            "JOIN users u ON u.id = se.employee_id")) {
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    int storeId = resultSet.getInt("store_id");
+                    if (stores.containsKey(storeId)) {
+                        employees.computeIfAbsent(storeId, id -> new ArrayList<>()).add(new User(
+                                resultSet.getInt("id"),
+                                resultSet.getString("email"),
+                                resultSet.getString("password"),
+                                User.Role.valueOf(resultSet.getString("role") == null ? "USER" : resultSet.getString("role")),
+                                resultSet.getBoolean("is_verified")
+                        ));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        employees.forEach((storeId, storeEmployees) -> stores.get(storeId).setEmployees(storeEmployees));
+
+        for (Inventory inventory : inventoryRepository.getAllInventories()) {
+            Store store = stores.get(inventory.getStoreId());
+            if (store != null && store.getInventory() == null) {
+                store.setInventory(inventory);
+            }
+        }
+        return new ArrayList<>(stores.values());
+    }
+
+    /**
+     * Search the stores whose name contains a text, ignoring case
+     * The stores are returned without their inventory and employees, like {@link #getStore(String)}
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of stores
+     * @return the matching stores, ordered by id
+     */
+    @Override
+    public List<Store> searchStores(String text, int limit) {
         List<Store> stores = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores WHERE LOWER(name) LIKE ? ESCAPE '!' ORDER BY id LIMIT ?")) {
+            statement.setString(1, containsPattern(text));
+            statement.setInt(2, limit);
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
-                Store store = new Store(
+                stores.add(new Store(
                         resultSet.getInt("id"),
                         resultSet.getString("name")
-                );
-                store.setInventory(inventoryRepository.getInventory(store.getId()));
-                store.setEmployees(getEmployees(store));
-                stores.add(store);
+                ));
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -145,16 +209,16 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public void addEmployee(Store store, User user) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO stores_employee (store_id, employee_id) VALUES (?, ?)")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("INSERT INTO stores_employee (store_id, employee_id) VALUES (?, ?)")) {
                 statement.setInt(1, store.getId());
                 statement.setInt(2, user.getId());
                 statement.executeUpdate();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
@@ -165,16 +229,16 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public void removeEmployee(Store store, User user) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM stores_employee WHERE store_id = ? AND employee_id = ?")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("DELETE FROM stores_employee WHERE store_id = ? AND employee_id = ?")) {
                 statement.setInt(1, store.getId());
                 statement.setInt(2, user.getId());
                 statement.executeUpdate();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
@@ -184,9 +248,9 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public List<User> getEmployeesPermissions(Store store) {
-        Connection connection = database.getConnection();
         List<User> users = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
                 "SELECT u.* FROM users u " +
                         "LEFT JOIN users_permission up ON u.id = up.user_id " +
                         "WHERE up.store_id = ?")) {
@@ -215,9 +279,9 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public void addEmployeePermission(Store store, User user) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO users_permission (store_id, user_id) VALUES (?, ?)")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("INSERT INTO users_permission (store_id, user_id) VALUES (?, ?)")) {
                 statement.setInt(1, store.getId());
                 statement.setInt(2, user.getId());
                 statement.executeUpdate();
@@ -225,7 +289,7 @@ public class StoreDAO implements StoreRepository {
                 e.printStackTrace();
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
 
     }
 
@@ -237,16 +301,38 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public void removeEmployeePermission(Store store, User user) {
-        Connection connection = database.getConnection();
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM users_permission WHERE store_id = ? AND user_id = ?")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("DELETE FROM users_permission WHERE store_id = ? AND user_id = ?")) {
                 statement.setInt(1, store.getId());
                 statement.setInt(2, user.getId());
                 statement.executeUpdate();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
+    }
+
+    /**
+     * Get the ids of the stores a user has a permission on
+     *
+     * @param user the user
+     * @return the ids of the stores
+     */
+    @Override
+    public List<Integer> getPermittedStoreIds(User user) {
+        List<Integer> storeIds = new ArrayList<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT store_id FROM users_permission WHERE user_id = ?")) {
+            statement.setInt(1, user.getId());
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                storeIds.add(resultSet.getInt("store_id"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return storeIds;
     }
 
     /**
@@ -258,8 +344,8 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public boolean isEmployeeAlreadyAdded(User user, Store store) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores_employee WHERE store_id = ? AND employee_id = ?")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM stores_employee WHERE store_id = ? AND employee_id = ?")) {
             statement.setInt(1, store.getId());
             statement.setInt(2, user.getId());
             ResultSet resultSet = statement.executeQuery();
@@ -280,9 +366,9 @@ public class StoreDAO implements StoreRepository {
      */
     @Override
     public List<User> getEmployees(Store store) {
-        Connection connection = database.getConnection();
         List<User> users = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
                 "SELECT u.* FROM users u " +
                         "LEFT JOIN stores_employee se ON u.id = se.employee_id " +
                         "WHERE se.store_id = ?")) {
@@ -304,33 +390,13 @@ public class StoreDAO implements StoreRepository {
     }
 
     /**
-     * Create the stores and stores_employee tables
+     * Get the LIKE pattern matching the texts containing a text, with its wildcards escaped by '!'
+     *
+     * @param text the text to search
+     * @return the pattern
      */
-    public void createTable() {
-        Connection connection = database.getConnection();
-        database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("CREATE TABLE IF NOT EXISTS stores (id INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) UNIQUE NOT NULL)"
-            )) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-
-            try (PreparedStatement statement = connection.prepareStatement("CREATE TABLE IF NOT EXISTS stores_employee (id INT PRIMARY KEY AUTO_INCREMENT, store_id INT NOT NULL, employee_id INT NOT NULL, FOREIGN KEY (store_id) REFERENCES stores(id), FOREIGN KEY (employee_id) REFERENCES employees(id))"
-            )) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-            try (PreparedStatement statement = connection.prepareStatement("CREATE TABLE IF NOT EXISTS users_permission (id INT PRIMARY KEY AUTO_INCREMENT, store_id INT NOT NULL, user_id INT NOT NULL, FOREIGN KEY (store_id) REFERENCES stores(id), FOREIGN KEY (user_id) REFERENCES users(id))"
-            )) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-
-            }
-        });
+    private static String containsPattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT).replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
     }
-
-}
\ No newline at end of file
+}
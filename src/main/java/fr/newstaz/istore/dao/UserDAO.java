@@ -10,6 +10,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * UserDAO class to manage the user DAO
@@ -34,7 +35,6 @@ public class UserDAO implements UserRepository {
      */
     public UserDAO(Database database) {
         this.database = database;
-        createUserTable();
     }
 
     /**
@@ -44,10 +44,9 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public void createUser(User user) {
-        Connection connection = database.getConnection();
-
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO users (email, password, role, is_verified) VALUES (?, ?, ?, ?)")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("INSERT INTO users (email, password, role, is_verified) VALUES (?, ?, ?, ?)")) {
                 statement.setString(1, user.getEmail());
                 statement.setString(2, user.getPassword());
                 statement.setString(3, user.getRole().name());
@@ -57,7 +56,7 @@ public class UserDAO implements UserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
@@ -68,8 +67,8 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public User getUser(int id) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE id = ?")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE id = ?")) {
             statement.setInt(1, id);
 
             ResultSet resultSet = statement.executeQuery();
@@ -97,8 +96,8 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public User getUser(String login) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE email = ?")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE email = ?")) {
             statement.setString(1, login);
 
             ResultSet resultSet = statement.executeQuery();
@@ -125,8 +124,8 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public User getUserById(int id) {
-        Connection connection = database.getConnection();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE id = ?")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE id = ?")) {
             statement.setInt(1, id);
             ResultSet resultSet = statement.executeQuery();
             if (resultSet.next()) {
@@ -151,10 +150,9 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public void updateUser(User user) {
-        Connection connection = database.getConnection();
-
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("UPDATE users SET email = ?, password = ?, role = ?, is_verified = ? WHERE id = ?")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("UPDATE users SET email = ?, password = ?, role = ?, is_verified = ? WHERE id = ?")) {
                 statement.setString(1, user.getEmail());
                 statement.setString(2, user.getPassword());
                 statement.setString(3, user.getRole().name());
@@ -165,7 +163,7 @@ public class UserDAO implements UserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
@@ -175,17 +173,16 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public void deleteUser(User user) {
-        Connection connection = database.getConnection();
-
         database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
+            try (Connection connection = database.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
                 statement.setInt(1, user.getId());
 
                 statement.executeUpdate();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }).exceptionally(Database::reportFailure);
     }
 
     /**
@@ -195,9 +192,9 @@ public class UserDAO implements UserRepository {
      */
     @Override
     public List<User> getAllUsers() {
-        Connection connection = database.getConnection();
         List<User> users = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM users")) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users")) {
             ResultSet resultSet = statement.executeQuery();
 
             while (resultSet.next()) {
@@ -216,18 +213,45 @@ public class UserDAO implements UserRepository {
     }
 
     /**
-     * Create the user table
+     * Search the users whose email contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of users
+     * @return the matching users, ordered by id
      */
-    private void createUserTable() {
-        Connection connection = database.getConnection();
+    @Override
+    public List<User> searchUsers(String text, int limit) {
+        List<User> users = new ArrayList<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE LOWER(email) LIKE ? ESCAPE '!' ORDER BY id LIMIT ?")) {
+            statement.setString(1, containsPattern(text));
+            statement.setInt(2, limit);
+            ResultSet resultSet = statement.executeQuery();
 
-        database.execute(() -> {
-            try (PreparedStatement statement = connection.prepareStatement("CREATE TABLE IF NOT EXISTS users (id INT PRIMARY KEY AUTO_INCREMENT, email VARCHAR(255), password VARCHAR(255), role VARCHAR(255), is_verified BOOLEAN)")) {
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+            while (resultSet.next()) {
+                users.add(new User(
+                        resultSet.getInt("id"),
+                        resultSet.getString("email"),
+                        resultSet.getString("password"),
+                        User.Role.valueOf(resultSet.getString("role") == null ? "USER" : resultSet.getString("role")),
+                        resultSet.getBoolean("is_verified")
+                ));
             }
-        });
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return users;
+    }
+
+    /**
+     * Get the LIKE pattern matching the texts containing a text, with its wildcards escaped by '!'
+     *
+     * @param text the text to search
+     * @return the pattern
+     */
+    private static String containsPattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT).replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
     }
 
 }
@@ -0,0 +1,582 @@
+package fr.newstaz.istore.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConnectionPool class to manage a bounded pool of database connections
+ * <p>
+ * Connections are borrowed with {@link #borrow()} and given back by calling {@link Connection#close()}
+ * on the borrowed connection. Idle connections above the minimum size are evicted after the idle timeout,
+ * and connections held longer than the leak detection threshold are reported.
+ * Each connection keeps its prepared statements open in a {@link StatementCache}, so the statements
+ * prepared with the same SQL on every borrow are only parsed once per connection.
+ * </p>
+ * <p>
+ * The physical connections are counted when opened and closed, so a connection moving between
+ * the idle and the borrowed connections is still counted and the pool never opens more than its maximum size.
+ * </p>
+ *
+ * @version 1.0
+ * @see Database
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Connections used less than this delay ago are not validated on borrow
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    /**
+     * The timeout in seconds of the validation query
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * The url of the database
+     */
+    private final String url;
+
+    /**
+     * The user of the database
+     */
+    private final String user;
+
+    /**
+     * The password of the database
+     */
+    private final String password;
+
+    /**
+     * The minimum number of connections kept open
+     */
+    private final int minSize;
+
+    /**
+     * The maximum number of connections opened at the same time
+     */
+    private final int maxSize;
+
+    /**
+     * The time after which an idle connection above the minimum size is closed
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * The maximum time to wait for a connection when the pool is exhausted
+     */
+    private final long borrowTimeoutMillis;
+
+    /**
+     * The time after which a borrowed connection is reported as leaked (0 to disable)
+     */
+    private final long leakDetectionMillis;
+
+    /**
+     * The maximum number of prepared statements cached per connection (0 to disable)
+     */
+    private final int statementCacheSize;
+
+    /**
+     * The hit and miss metrics of the prepared statement caches
+     */
+    private final StatementCacheMetrics statementCacheMetrics = new StatementCacheMetrics();
+
+    /**
+     * The idle connections, most recently used first
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * The borrowed connections
+     */
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of open physical connections, idle, borrowed or moving between both
+     */
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    /**
+     * One permit per connection that can still be borrowed
+     */
+    private final Semaphore permits;
+
+    /**
+     * The executor running the eviction and leak detection
+     */
+    private final ScheduledThreadPoolExecutor housekeeper;
+
+    /**
+     * Whether the pool is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor with the connection settings and the pool limits
+     *
+     * @param url                 the url of the database
+     * @param user                the user of the database
+     * @param password            the password of the database
+     * @param minSize             the minimum number of connections
+     * @param maxSize             the maximum number of connections
+     * @param idleTimeoutMillis   the idle timeout in milliseconds
+     * @param borrowTimeoutMillis the borrow timeout in milliseconds
+     * @param leakDetectionMillis the leak detection threshold in milliseconds (0 to disable)
+     * @param statementCacheSize  the maximum number of prepared statements cached per connection (0 to disable)
+     * @throws SQLException if the initial connections can't be opened
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, long leakDetectionMillis, int statementCacheSize) throws SQLException {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakDetectionMillis = leakDetectionMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.offerLast(open(minSize));
+        }
+
+        this.housekeeper = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "istore-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakDetectionMillis > 0 ? leakDetectionMillis : idleTimeoutMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool
+     * <p>
+     * The returned connection must be closed to be given back to the pool.
+     * </p>
+     *
+     * @return the borrowed connection
+     * @throws SQLException if the pool is closed, exhausted for longer than the borrow timeout or the connection can't be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis + "ms waiting for a connection (active: " + borrowed.size() + ", max: " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null && !isUsable(pooled)) {
+                pooled.closePhysical();
+            }
+            if (pooled == null) {
+                pooled = open(maxSize);
+            }
+            if (pooled == null) {
+                pooled = awaitIdle();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrower = leakDetectionMillis > 0 ? new Throwable("Connection borrowed by " + Thread.currentThread().getName()) : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of borrowed connections
+     *
+     * @return the number of borrowed connections
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Get the number of open physical connections
+     *
+     * @return the number of open connections
+     */
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * Get the number of idle connections
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Get the maximum number of connections
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the hit and miss metrics of the prepared statement caches
+     *
+     * @return the statement cache metrics
+     */
+    public StatementCacheMetrics getStatementCacheMetrics() {
+        return statementCacheMetrics;
+    }
+
+    /**
+     * Close the pool and all the idle connections
+     * Borrowed connections are closed when they are given back
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * Open a new physical connection if fewer than a limit are open
+     *
+     * @param limit the maximum number of open connections
+     * @return the pooled connection, or null if the limit is reached
+     * @throws SQLException if the connection can't be opened
+     */
+    private PooledConnection open(int limit) throws SQLException {
+        int count;
+        do {
+            count = openCount.get();
+            if (count >= limit) {
+                return null;
+            }
+        } while (!openCount.compareAndSet(count, count + 1));
+
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, user, password));
+        } catch (SQLException | RuntimeException e) {
+            openCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for an idle connection when all the connections are open
+     * The borrower holds a permit, so a connection is on its way back to the idle connections
+     *
+     * @return the pooled connection
+     * @throws SQLException if no connection is given back before the borrow timeout or a new one can't be opened
+     */
+    private PooledConnection awaitIdle() throws SQLException {
+        PooledConnection pooled;
+        try {
+            pooled = idle.pollFirst(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        if (pooled != null && isUsable(pooled)) {
+            return pooled;
+        }
+        if (pooled != null) {
+            pooled.closePhysical();
+        }
+        pooled = open(maxSize);
+        if (pooled == null) {
+            throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis + "ms waiting for a connection (open: " + openCount.get() + ", max: " + maxSize + ")");
+        }
+        return pooled;
+    }
+
+    /**
+     * Check if an idle connection can be handed out
+     *
+     * @param pooled the pooled connection
+     * @return true if the connection is still valid, false otherwise
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        if (pooled.broken) {
+            return false;
+        }
+        if (System.currentTimeMillis() - pooled.lastUsedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Give a connection back to the pool
+     *
+     * @param pooled the pooled connection
+     */
+    private void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+        try {
+            if (!pooled.broken && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            pooled.broken = true;
+        }
+
+        if (closed || pooled.broken) {
+            pooled.closePhysical();
+        } else {
+            pooled.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * Evict the expired idle connections, refill the pool to its minimum size and report the leaked connections
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        int removable = idle.size() - minSize;
+        for (PooledConnection pooled : idle) {
+            if (removable <= 0) {
+                break;
+            }
+            if (now - pooled.lastUsedAt > idleTimeoutMillis && idle.remove(pooled)) {
+                pooled.closePhysical();
+                removable--;
+            }
+        }
+
+        while (!closed) {
+            try {
+                PooledConnection pooled = open(minSize);
+                if (pooled == null) {
+                    break;
+                }
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.out.println("Unable to refill the connection pool: " + e.getMessage());
+                break;
+            }
+        }
+
+        if (leakDetectionMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakDetectionMillis) {
+                    pooled.leakReported = true;
+                    System.out.println("Possible connection leak: borrowed for " + (now - pooled.borrowedAt) + "ms");
+                    if (pooled.borrower != null) {
+                        pooled.borrower.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * PooledConnection class holding a physical connection and its pool state
+     */
+    private final class PooledConnection {
+
+        /**
+         * The physical connection
+         */
+        private final Connection physical;
+
+        /**
+         * The cache of prepared statements (null when disabled)
+         */
+        private final StatementCache statementCache;
+
+        /**
+         * The last time the connection was given back
+         */
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        /**
+         * The last time the connection was borrowed
+         */
+        private volatile long borrowedAt;
+
+        /**
+         * The stack trace of the borrower (only when leak detection is enabled)
+         */
+        private volatile Throwable borrower;
+
+        /**
+         * Whether the current leak has already been reported
+         */
+        private volatile boolean leakReported;
+
+        /**
+         * Whether the connection raised a connection error and must be discarded
+         */
+        private volatile boolean broken;
+
+        /**
+         * Whether the physical connection is closed
+         */
+        private boolean physicalClosed;
+
+        /**
+         * Constructor with the physical connection
+         *
+         * @param physical the physical connection
+         */
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize, statementCacheMetrics) : null;
+        }
+
+        /**
+         * Create a new handle on the physical connection whose close gives it back to the pool
+         *
+         * @return the connection handle
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this)
+            );
+        }
+
+        /**
+         * Close the physical connection
+         */
+        private void closePhysical() {
+            synchronized (this) {
+                if (physicalClosed) {
+                    return;
+                }
+                physicalClosed = true;
+            }
+            openCount.decrementAndGet();
+            if (statementCache != null) {
+                statementCache.close();
+            }
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * LeaseHandler class to forward the calls of a borrowed connection to the physical connection
+     */
+    private final class LeaseHandler implements InvocationHandler {
+
+        /**
+         * The pooled connection
+         */
+        private final PooledConnection pooled;
+
+        /**
+         * Whether this handle was closed
+         */
+        private boolean released;
+
+        /**
+         * Constructor with the pooled connection
+         *
+         * @param pooled the pooled connection
+         */
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been given back to the pool");
+            }
+            try {
+                if (pooled.statementCache != null && method.getName().equals("prepareStatement")
+                        && (args.length == 1 || args.length == 2 && args[1] instanceof Integer)) {
+                    int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                    return pooled.statementCache.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                }
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw checkBroken(e.getCause());
+            } catch (SQLException e) {
+                throw checkBroken(e);
+            }
+        }
+
+        /**
+         * Mark the connection as broken if the failure is a connection error
+         *
+         * @param cause the failure
+         * @return the failure
+         */
+        private Throwable checkBroken(Throwable cause) {
+            if (cause instanceof SQLException sqlException
+                    && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith("08")) {
+                pooled.broken = true;
+            }
+            return cause;
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package fr.newstaz.istore.database;
 
+import fr.newstaz.istore.AppConfig;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.concurrent.Executor;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Database class to manage the database
@@ -14,44 +25,248 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 public class Database {
 
     /**
-     * The connection to the database
+     * The pool of connections to the database
      *
      * @see #getConnection()
      */
-    private final Connection connection;
+    private final ConnectionPool connectionPool;
 
     /**
      * The executor to execute tasks (async)
+     *
+     * @see ExecutorMode
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The queue depth and latency metrics of the executor
+     */
+    private final ExecutorMetrics executorMetrics = new ExecutorMetrics();
+
+    /**
+     * The SQL dialect of the database
+     *
+     * @see #getDialect()
+     */
+    private final Dialect dialect;
+
+    /**
+     * The application configuration
+     *
+     * @see #getAppConfig()
+     */
+    private final AppConfig appConfig;
+
+    /**
+     * The tasks to run before the database is closed
+     *
+     * @see #onClose(Runnable)
      */
-    private final Executor executor = new ScheduledThreadPoolExecutor(2);
+    private final List<Runnable> closeHooks = new CopyOnWriteArrayList<>();
 
     /**
-     * Constructor with url, user and password
+     * Whether the current thread is running a task of the executor
+     */
+    private final ThreadLocal<Boolean> insideExecutor = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Constructor with the application configuration
      *
-     * @param url      the url of the database
-     * @param user     the user of the database
-     * @param password the password of the database
+     * @param appConfig the application configuration
      * @throws SQLException if the connection to the database fails
      */
-    public Database(String url, String user, String password) throws SQLException {
-        this.connection = DriverManager.getConnection(url, user, password);
+    public Database(AppConfig appConfig) throws SQLException {
+        this.appConfig = appConfig;
+        this.dialect = appConfig.getDatabaseDialect();
+        this.connectionPool = new ConnectionPool(
+                appConfig.getDatabaseUrl(),
+                appConfig.getDatabaseUsername(),
+                appConfig.getDatabasePassword(),
+                appConfig.getPoolMinSize(),
+                appConfig.getPoolMaxSize(),
+                appConfig.getPoolIdleTimeout(),
+                appConfig.getPoolBorrowTimeout(),
+                appConfig.getPoolLeakDetectionThreshold(),
+                appConfig.getPoolStatementCacheSize()
+        );
+        this.executor = createExecutor(appConfig.getExecutorMode(), appConfig.getExecutorThreads(), appConfig.getExecutorQueueCapacity());
     }
 
     /**
-     * Get the connection to the database
+     * Borrow a connection from the pool
+     * <p>
+     * The connection must be closed once used to give it back to the pool,
+     * preferably with a try-with-resources statement.
+     * Its prepared statements come from the statement cache of the pooled connection
+     * and must be closed the same way.
+     * </p>
      *
-     * @return the connection to the database
+     * @return the borrowed connection
+     * @throws SQLException if no connection is available before the borrow timeout
      */
-    public Connection getConnection() {
-        return connection;
+    public Connection getConnection() throws SQLException {
+        return connectionPool.borrow();
+    }
+
+    /**
+     * Get the SQL dialect of the database
+     *
+     * @return the dialect
+     */
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Get the connection pool
+     *
+     * @return the connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
     }
 
     /**
      * Execute a runnable task
+     * <p>
+     * The task runs on the executor, or directly when called from a task already running on it,
+     * so that a write issued from an async repository call completes before its future.
+     * Failures are reported through the returned future, or thrown to the enclosing task
+     * when the task runs directly: reporting them is up to the caller (see {@link #reportFailure(Throwable)}).
+     * </p>
      *
      * @param runnable the task to execute
+     * @return the future completed when the task is done
      */
-    public void execute(Runnable runnable) {
-        executor.execute(runnable);
+    public CompletableFuture<Void> execute(Runnable runnable) {
+        return supply(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Execute a task returning a value
+     *
+     * @param supplier the task to execute
+     * @param <T>      the type of the value
+     * @return the future completed with the value of the task,
+     * failed with a {@link RejectedExecutionException} if the queue of the executor is full
+     * @see #execute(Runnable)
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        if (insideExecutor.get()) {
+            return CompletableFuture.completedFuture(supplier.get());
+        }
+
+        long submittedAt = executorMetrics.submitted();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = executorMetrics.started(submittedAt);
+                boolean success = false;
+                insideExecutor.set(true);
+                try {
+                    T value = supplier.get();
+                    success = true;
+                    return value;
+                } finally {
+                    insideExecutor.set(false);
+                    executorMetrics.finished(submittedAt, startedAt, success);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            executorMetrics.rejected();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Print the failure of a task nobody waits for, as in {@code database.execute(...).exceptionally(Database::reportFailure)}
+     *
+     * @param throwable the failure of the task
+     * @param <T>       the type of the value of the task
+     * @return null
+     */
+    public static <T> T reportFailure(Throwable throwable) {
+        throwable.printStackTrace();
+        return null;
+    }
+
+    /**
+     * Get the queue depth and latency metrics of the executor
+     *
+     * @return the executor metrics
+     */
+    public ExecutorMetrics getExecutorMetrics() {
+        return executorMetrics;
+    }
+
+    /**
+     * Get the application configuration
+     *
+     * @return the application configuration
+     */
+    public AppConfig getAppConfig() {
+        return appConfig;
+    }
+
+    /**
+     * Register a task to run when the database is closed, before the pending tasks are drained
+     *
+     * @param hook the task to run
+     */
+    public void onClose(Runnable hook) {
+        closeHooks.add(hook);
+    }
+
+    /**
+     * Run the close hooks, wait for the pending tasks then close the connection pool
+     */
+    public void close() {
+        for (Runnable hook : closeHooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.out.println("Database tasks still running on close: " + executorMetrics);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connectionPool.close();
+    }
+
+    /**
+     * Create the executor of the tasks
+     *
+     * @param mode          the execution mode
+     * @param threads       the number of threads of the bounded mode
+     * @param queueCapacity the queue capacity of the bounded mode
+     * @return the executor
+     */
+    private static ExecutorService createExecutor(ExecutorMode mode, int threads, int queueCapacity) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads are not available on Java " + Runtime.version().feature() + ", using the bounded executor");
+                mode = ExecutorMode.BOUNDED;
+            }
+        }
+
+        if (mode == ExecutorMode.BOUNDED) {
+            AtomicInteger counter = new AtomicInteger();
+            return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, "istore-database-" + counter.incrementAndGet()),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        return new ScheduledThreadPoolExecutor(2);
     }
 }
@@ -0,0 +1,74 @@
+package fr.newstaz.istore.database;
+
+import java.util.List;
+
+/**
+ * Dialect interface to abstract the SQL differences between the supported databases
+ *
+ * @version 1.0
+ * @see MySQLDialect
+ * @see H2Dialect
+ */
+public interface Dialect {
+
+    /**
+     * Get the name of the dialect
+     *
+     * @return the name of the dialect
+     */
+    String getName();
+
+    /**
+     * Get the class name of the JDBC driver
+     *
+     * @return the class name of the JDBC driver
+     */
+    String getDriverClassName();
+
+    /**
+     * Get the definition of an auto-incremented integer primary key column
+     *
+     * @return the column definition (without the column name)
+     */
+    String autoIncrementPrimaryKey();
+
+    /**
+     * Get an insert statement updating the existing row when the key already exists
+     *
+     * @param table     the table
+     * @param columns   the columns, one parameter per column in the same order
+     * @param keyColumn the unique column identifying the row
+     * @return the upsert statement
+     */
+    String upsert(String table, List<String> columns, String keyColumn);
+
+    /**
+     * Find the dialect of a JDBC url
+     *
+     * @param url the JDBC url
+     * @return the dialect of the url (MySQL by default)
+     */
+    static Dialect forUrl(String url) {
+        if (url != null && url.startsWith("jdbc:h2:")) {
+            return new H2Dialect();
+        }
+        return new MySQLDialect();
+    }
+
+    /**
+     * Find a dialect by name
+     *
+     * @param name the name of the dialect
+     * @return the dialect or null if unknown
+     */
+    static Dialect forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name.trim().toUpperCase()) {
+            case "H2" -> new H2Dialect();
+            case "MYSQL" -> new MySQLDialect();
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package fr.newstaz.istore.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ExecutorMetrics class to measure the queue depth and the latency of the database tasks
+ *
+ * @version 1.0
+ * @see Database
+ */
+public class ExecutorMetrics {
+
+    /**
+     * The number of tasks submitted but not started yet
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * The number of running tasks
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * The highest number of queued tasks observed
+     */
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    /**
+     * The number of completed tasks
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * The number of failed tasks
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * The number of tasks rejected because the queue was full
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The total time spent by the tasks in the queue in nanoseconds
+     */
+    private final LongAdder totalQueueNanos = new LongAdder();
+
+    /**
+     * The total time spent running the tasks in nanoseconds
+     */
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    /**
+     * The longest time a task spent queued and running in nanoseconds
+     */
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Record the submission of a task
+     *
+     * @return the submission time to pass to {@link #started(long)}
+     */
+    long submitted() {
+        maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the start of a task
+     *
+     * @param submittedAt the submission time
+     * @return the start time to pass to {@link #finished(long, long, boolean)}
+     */
+    long started(long submittedAt) {
+        long now = System.nanoTime();
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        totalQueueNanos.add(now - submittedAt);
+        return now;
+    }
+
+    /**
+     * Record the end of a task
+     *
+     * @param submittedAt the submission time
+     * @param startedAt   the start time
+     * @param success     whether the task succeeded
+     */
+    void finished(long submittedAt, long startedAt, boolean success) {
+        long now = System.nanoTime();
+        running.decrementAndGet();
+        totalRunNanos.add(now - startedAt);
+        maxLatencyNanos.accumulateAndGet(now - submittedAt, Math::max);
+        completed.increment();
+        if (!success) {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Record the rejection of a submitted task
+     */
+    void rejected() {
+        queued.decrementAndGet();
+        rejected.increment();
+    }
+
+    /**
+     * Get the number of tasks waiting to be executed
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Get the highest queue depth observed
+     *
+     * @return the highest queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueued.get();
+    }
+
+    /**
+     * Get the number of running tasks
+     *
+     * @return the number of running tasks
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Get the number of completed tasks
+     *
+     * @return the number of completed tasks
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Get the number of failed tasks
+     *
+     * @return the number of failed tasks
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Get the number of tasks rejected because the queue was full
+     *
+     * @return the number of rejected tasks
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the average time spent by a task in the queue
+     *
+     * @return the average queue time in milliseconds
+     */
+    public double getAverageQueueTimeMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : (double) totalQueueNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the average time spent running a task
+     *
+     * @return the average run time in milliseconds
+     */
+    public double getAverageRunTimeMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : (double) totalRunNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the longest time a task spent queued and running
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return (double) maxLatencyNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d (max %d), running=%d, completed=%d, failed=%d, rejected=%d, avgQueue=%.2fms, avgRun=%.2fms, maxLatency=%.2fms",
+                getQueueDepth(), getMaxQueueDepth(), getRunning(), getCompleted(), getFailed(), getRejected(),
+                getAverageQueueTimeMillis(), getAverageRunTimeMillis(), getMaxLatencyMillis());
+    }
+}
@@ -0,0 +1,28 @@
+package fr.newstaz.istore.database;
+
+/**
+ * ExecutorMode enum class listing the ways the database tasks can be executed
+ *
+ * @version 1.0
+ * @see Database
+ */
+public enum ExecutorMode {
+
+    /**
+     * Two platform threads with an unbounded queue (historical behavior)
+     */
+    LEGACY,
+
+    /**
+     * A fixed number of platform threads with a bounded queue, a task submitted while the queue is full
+     * is rejected (its future fails with a {@link java.util.concurrent.RejectedExecutionException})
+     * rather than run on the caller thread, which is usually the Swing event dispatch thread
+     */
+    BOUNDED,
+
+    /**
+     * One virtual thread per task, concurrency being bounded by the connection pool
+     * (requires a Java 21+ runtime, falls back to {@link #BOUNDED} otherwise)
+     */
+    VIRTUAL
+}
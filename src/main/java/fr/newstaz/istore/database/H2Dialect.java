@@ -0,0 +1,38 @@
+package fr.newstaz.istore.database;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * H2Dialect class for an embedded in-process H2 database
+ * <p>
+ * Used for the offline mode, the tests and the benchmarks, with urls such as
+ * {@code jdbc:h2:./data/istore} (file) or {@code jdbc:h2:mem:istore} (memory).
+ * </p>
+ *
+ * @version 1.0
+ * @see Dialect
+ */
+public class H2Dialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    public String autoIncrementPrimaryKey() {
+        return "INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY";
+    }
+
+    @Override
+    public String upsert(String table, List<String> columns, String keyColumn) {
+        return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + keyColumn + ") " +
+                "VALUES (" + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+}
@@ -0,0 +1,105 @@
+package fr.newstaz.istore.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Migration record describing a versioned change of the database schema
+ * <p>
+ * The script is a resource of {@code db/migration} holding SQL statements separated by semicolons,
+ * where {@code ${AUTO_INCREMENT_PRIMARY_KEY}} is replaced by the definition of the {@link Dialect}.
+ * </p>
+ * <p>
+ * A script fixed after being released lists the checksums of its earlier revisions,
+ * so that the databases where such a revision was applied are still considered up to date.
+ * </p>
+ *
+ * @param version           the version of the schema after the migration
+ * @param description       the description of the migration
+ * @param script            the name of the script resource
+ * @param previousChecksums the checksums of the earlier revisions of the script
+ * @version 1.0
+ * @see SchemaMigrator
+ */
+public record Migration(int version, String description, String script, Set<Long> previousChecksums) {
+
+    /**
+     * The folder of the script resources
+     */
+    private static final String SCRIPT_FOLDER = "db/migration/";
+
+    /**
+     * Constructor of a migration whose script was never changed
+     *
+     * @param version     the version of the schema after the migration
+     * @param description the description of the migration
+     * @param script      the name of the script resource
+     */
+    public Migration(int version, String description, String script) {
+        this(version, description, script, Set.of());
+    }
+
+    /**
+     * Read the statements of the script for a dialect
+     *
+     * @param dialect the dialect of the database
+     * @return the statements of the script
+     */
+    public List<String> getStatements(Dialect dialect) {
+        String sql = readScript().replace("${AUTO_INCREMENT_PRIMARY_KEY}", dialect.autoIncrementPrimaryKey());
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            statement.append(trimmed);
+            if (trimmed.endsWith(";")) {
+                statement.setLength(statement.length() - 1);
+                statements.add(statement.toString());
+                statement.setLength(0);
+            } else {
+                statement.append(' ');
+            }
+        }
+        if (!statement.isEmpty()) {
+            statements.add(statement.toString().trim());
+        }
+        return statements;
+    }
+
+    /**
+     * Get the checksum of the script, used to detect a script modified after being applied
+     * Line endings are normalized so the checksum doesn't depend on the platform
+     *
+     * @return the CRC32 checksum of the script
+     */
+    public long getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(readScript().replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Read the script resource
+     *
+     * @return the content of the script
+     */
+    private String readScript() {
+        try (InputStream input = Migration.class.getClassLoader().getResourceAsStream(SCRIPT_FOLDER + script)) {
+            if (input == null) {
+                throw new IllegalStateException("Migration script not found: " + SCRIPT_FOLDER + script);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package fr.newstaz.istore.database;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * MySQLDialect class for a MySQL server
+ *
+ * @version 1.0
+ * @see Dialect
+ */
+public class MySQLDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "com.mysql.cj.jdbc.Driver";
+    }
+
+    @Override
+    public String autoIncrementPrimaryKey() {
+        return "INT PRIMARY KEY AUTO_INCREMENT";
+    }
+
+    @Override
+    public String upsert(String table, List<String> columns, String keyColumn) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") " +
+                "VALUES (" + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") " +
+                "ON DUPLICATE KEY UPDATE " + columns.stream().map(column -> column + " = VALUES(" + column + ")").collect(Collectors.joining(", "));
+    }
+}
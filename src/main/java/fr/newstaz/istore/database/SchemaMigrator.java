@@ -0,0 +1,236 @@
+package fr.newstaz.istore.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SchemaMigrator class to bring the database schema to the latest version
+ * <p>
+ * The applied versions are recorded with the checksum of their script in the {@code schema_version} table,
+ * so each migration runs once. The migrations run in version order, on one connection,
+ * before the repositories are created: the DAOs don't create their tables anymore.
+ * </p>
+ * <p>
+ * MySQL commits each DDL statement implicitly, so a failed migration may be partially applied.
+ * To let it run again, an index that already exists is not created a second time.
+ * </p>
+ *
+ * @version 1.0
+ * @see Migration
+ */
+public class SchemaMigrator {
+
+    /**
+     * The migrations of the schema, in version order
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create the tables", "V1__create_tables.sql"),
+            new Migration(2, "Add the indexes of the DAO lookups", "V2__add_lookup_indexes.sql", Set.of(688851384L)),
+            new Migration(3, "Create the versions of the seeded accounts", "V3__create_seed_version.sql"),
+            new Migration(4, "Index the permissions of a user", "V4__add_user_permission_index.sql")
+    );
+
+    /**
+     * The SQL states of a missing table (H2 uses 42S04 when the database is empty)
+     */
+    private static final Set<String> TABLE_NOT_FOUND = Set.of("42S02", "42S04");
+
+    /**
+     * The SQL state of a missing column
+     */
+    private static final String COLUMN_NOT_FOUND = "42S22";
+
+    /**
+     * The index creation statement, capturing the name of the index and of its table
+     */
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Database instance
+     *
+     * @see Database
+     */
+    private final Database database;
+
+    /**
+     * SchemaMigrator constructor
+     *
+     * @param database the database
+     */
+    public SchemaMigrator(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Apply the migrations not applied yet
+     * <p>
+     * When the schema is current, this is a single query on {@code schema_version}: no DDL is executed.
+     * The checksum of each applied migration is compared to its script to detect modified scripts.
+     * </p>
+     *
+     * @return the number of applied migrations
+     * @throws IllegalStateException if an applied migration script was modified
+     */
+    public int migrate() {
+        Dialect dialect = database.getDialect();
+        long start = System.nanoTime();
+        int applied = 0;
+
+        try (Connection connection = database.getConnection()) {
+            Map<Integer, Long> appliedVersions = readAppliedVersions(connection);
+
+            for (Migration migration : MIGRATIONS) {
+                if (appliedVersions.containsKey(migration.version())) {
+                    verify(connection, migration, appliedVersions.get(migration.version()));
+                    continue;
+                }
+                long migrationStart = System.nanoTime();
+                apply(connection, migration, dialect);
+                applied++;
+                System.out.println("Applied migration V" + migration.version() + " (" + migration.description() + ") in " + (System.nanoTime() - migrationStart) / 1_000_000 + "ms");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (applied == 0) {
+            System.out.println("Schema is up to date at version " + MIGRATIONS.get(MIGRATIONS.size() - 1).version() + " (checked in " + (System.nanoTime() - start) / 1_000_000 + "ms)");
+        }
+        return applied;
+    }
+
+    /**
+     * Read the applied versions and their checksums, creating or upgrading the version table if needed
+     *
+     * @param connection the connection
+     * @return the checksums of the applied migrations by version (null checksum if unknown)
+     * @throws SQLException if the version table can't be read
+     */
+    private Map<Integer, Long> readAppliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> appliedVersions = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT version, checksum FROM schema_version");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                int version = resultSet.getInt("version");
+                long checksum = resultSet.getLong("checksum");
+                appliedVersions.put(version, resultSet.wasNull() ? null : checksum);
+            }
+            return appliedVersions;
+        } catch (SQLException e) {
+            if (TABLE_NOT_FOUND.contains(e.getSQLState())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("CREATE TABLE schema_version (version INT PRIMARY KEY, description VARCHAR(255) NOT NULL, checksum BIGINT, applied_at TIMESTAMP NOT NULL)");
+                }
+                return appliedVersions;
+            }
+            if (COLUMN_NOT_FOUND.equals(e.getSQLState())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("ALTER TABLE schema_version ADD COLUMN checksum BIGINT");
+                }
+                return readAppliedVersions(connection);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Check that an applied migration was not modified, recording its checksum if it is unknown
+     *
+     * @param connection the connection
+     * @param migration  the applied migration
+     * @param checksum   the recorded checksum or null if unknown
+     * @throws SQLException if the checksum can't be recorded
+     */
+    private void verify(Connection connection, Migration migration, Long checksum) throws SQLException {
+        long expected = migration.getChecksum();
+        if (checksum == null) {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE schema_version SET checksum = ? WHERE version = ?")) {
+                statement.setLong(1, expected);
+                statement.setInt(2, migration.version());
+                statement.executeUpdate();
+            }
+        } else if (checksum != expected && migration.previousChecksums().contains(checksum)) {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE schema_version SET checksum = ? WHERE version = ?")) {
+                statement.setLong(1, expected);
+                statement.setInt(2, migration.version());
+                statement.executeUpdate();
+            }
+            System.out.println("Migration V" + migration.version() + " was applied from an earlier revision of " + migration.script() + ", checksum updated");
+        } else if (checksum != expected) {
+            throw new IllegalStateException("Migration V" + migration.version() + " (" + migration.script() + ") was modified after being applied: checksum " + expected + " instead of " + checksum);
+        }
+    }
+
+    /**
+     * Apply a migration and record its version in one transaction
+     * MySQL commits each DDL statement implicitly, so a failed migration may be partially applied there
+     *
+     * @param connection the connection
+     * @param migration  the migration
+     * @param dialect    the dialect of the database
+     * @throws SQLException if a statement of the migration fails
+     */
+    private void apply(Connection connection, Migration migration, Dialect dialect) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : migration.getStatements(dialect)) {
+                    Matcher createIndex = CREATE_INDEX.matcher(sql);
+                    if (createIndex.lookingAt() && indexExists(connection, createIndex.group(2), createIndex.group(1))) {
+                        System.out.println("Index " + createIndex.group(1) + " already exists, skipped");
+                        continue;
+                    }
+                    statement.executeUpdate(sql);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO schema_version (version, description, checksum, applied_at) VALUES (?, ?, ?, ?)")) {
+                statement.setInt(1, migration.version());
+                statement.setString(2, migration.description());
+                statement.setLong(3, migration.getChecksum());
+                statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration V" + migration.version() + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Check in the catalog whether an index exists
+     *
+     * @param connection the connection
+     * @param table      the table of the index
+     * @param index      the name of the index
+     * @return true if the table has an index with this name, ignoring case
+     * @throws SQLException if the catalog can't be read
+     */
+    private static boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+        try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+            while (resultSet.next()) {
+                if (index.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
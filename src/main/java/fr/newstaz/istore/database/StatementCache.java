@@ -0,0 +1,261 @@
+package fr.newstaz.istore.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StatementCache class to keep the prepared statements of a pooled connection open between two borrows
+ * <p>
+ * Statements are keyed by their SQL text and evicted in least recently used order.
+ * A cached statement is handed out to one caller at a time: closing it clears its parameters
+ * and puts it back in the cache instead of closing it.
+ * </p>
+ *
+ * @version 1.0
+ * @see ConnectionPool
+ * @see StatementCacheMetrics
+ */
+final class StatementCache {
+
+    /**
+     * The physical connection preparing the statements
+     */
+    private final Connection physical;
+
+    /**
+     * The maximum number of cached statements
+     */
+    private final int maxSize;
+
+    /**
+     * The metrics shared by the caches of the pool
+     */
+    private final StatementCacheMetrics metrics;
+
+    /**
+     * The idle statements, least recently used first
+     */
+    private final Map<Key, PreparedStatement> statements;
+
+    /**
+     * Whether the cache is closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructor with the physical connection and the cache size
+     *
+     * @param physical the physical connection
+     * @param maxSize  the maximum number of cached statements
+     * @param metrics  the metrics shared by the caches of the pool
+     */
+    StatementCache(Connection physical, int maxSize, StatementCacheMetrics metrics) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                StatementCache.this.metrics.evicted();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement from the cache, or prepare it if it is not cached or already in use
+     *
+     * @param connection        the borrowed connection returned by {@link Statement#getConnection()}
+     * @param sql               the SQL of the statement
+     * @param autoGeneratedKeys whether the generated keys are returned ({@link Statement#RETURN_GENERATED_KEYS})
+     * @return the statement, given back to the cache when closed
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = statements.remove(key);
+        }
+
+        if (statement != null) {
+            metrics.hit();
+        } else {
+            metrics.miss();
+            statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementHandler(connection, key, statement)
+        );
+    }
+
+    /**
+     * Close all the cached statements
+     */
+    synchronized void close() {
+        closed = true;
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    /**
+     * Put a statement back in the cache, or close it if the cache is closed or already holds the same SQL
+     *
+     * @param key       the key of the statement
+     * @param statement the statement
+     */
+    private synchronized void giveBack(Key key, PreparedStatement statement) {
+        if (closed || statements.containsKey(key)) {
+            closeQuietly(statement);
+            return;
+        }
+        statements.put(key, statement);
+    }
+
+    /**
+     * Close a statement and ignore the failure
+     *
+     * @param statement the statement
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Key record of a cached statement
+     *
+     * @param sql               the SQL of the statement
+     * @param autoGeneratedKeys whether the generated keys are returned
+     */
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * StatementHandler class to forward the calls of a handed out statement and give it back on close
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        /**
+         * The borrowed connection
+         */
+        private final Connection connection;
+
+        /**
+         * The key of the statement
+         */
+        private final Key key;
+
+        /**
+         * The cached statement
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * The result sets opened by the caller, closed when the statement is given back
+         */
+        private final List<ResultSet> resultSets = new ArrayList<>(1);
+
+        /**
+         * Whether the statement failed and must not be reused
+         */
+        private boolean failed;
+
+        /**
+         * Whether this handle was closed
+         */
+        private boolean released;
+
+        /**
+         * Constructor with the statement
+         *
+         * @param connection the borrowed connection
+         * @param key        the key of the statement
+         * @param statement  the cached statement
+         */
+        private StatementHandler(Connection connection, Key key, PreparedStatement statement) {
+            this.connection = connection;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + key.sql() + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet resultSet) {
+                    resultSets.add(resultSet);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                failed = true;
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Close the result sets and give the statement back to the cache
+         */
+        private void release() {
+            try {
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                failed = true;
+            }
+            if (failed) {
+                closeQuietly(statement);
+            } else {
+                giveBack(key, statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package fr.newstaz.istore.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementCacheMetrics class to count the hits and misses of the prepared statement caches of a pool
+ *
+ * @version 1.0
+ * @see ConnectionPool
+ */
+public class StatementCacheMetrics {
+
+    /**
+     * The number of statements reused from a cache
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of statements prepared because they were not cached
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The number of statements closed to make room for another one
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Record a statement reused from a cache
+     */
+    void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Record a statement prepared because it was not cached
+     */
+    void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Record a statement evicted from a cache
+     */
+    void evicted() {
+        evictions.increment();
+    }
+
+    /**
+     * Get the number of statements reused from a cache
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of statements prepared because they were not cached
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of statements evicted from a cache
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the ratio of statements reused from a cache
+     *
+     * @return the hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, hitRatio=%.2f",
+                getHits(), getMisses(), getEvictions(), getHitRatio());
+    }
+}
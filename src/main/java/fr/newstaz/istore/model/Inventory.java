@@ -5,6 +5,10 @@ import java.util.List;
 
 /**
  * Inventory class to manage the inventory
+ * <p>
+ * The items are copied on write: a change replaces the list, so the list returned by
+ * {@link #getItems()} is read-only and can be iterated while the inventory is changed from another thread.
+ * </p>
  *
  * @version 1.0
  */
@@ -28,10 +32,13 @@ public class Inventory {
      * The list of items
      *
      * @see #getItems()
+     * @see #setItems(List)
      * @see #addItem(InventoryItem)
+     * @see #putItem(InventoryItem)
      * @see #removeItem(InventoryItem)
+     * @see #removeItemById(int)
      */
-    private final List<InventoryItem> items = new ArrayList<>();
+    private volatile List<InventoryItem> items = List.of();
 
     /**
      * Constructor with id and store id
@@ -75,19 +82,61 @@ public class Inventory {
     /**
      * Get the list of items
      *
-     * @return the list of items
+     * @return the read-only list of items
      */
     public List<InventoryItem> getItems() {
         return items;
     }
 
+    /**
+     * Replace all the items of the inventory
+     *
+     * @param items the new items
+     */
+    public synchronized void setItems(List<InventoryItem> items) {
+        this.items = List.copyOf(items);
+    }
+
     /**
      * Add an item to the inventory
      *
      * @param item the item to add
      */
-    public void addItem(InventoryItem item) {
+    public synchronized void addItem(InventoryItem item) {
+        List<InventoryItem> items = new ArrayList<>(this.items);
         items.add(item);
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * Replace the item with the same id, or add the item if there is none
+     *
+     * @param item the item
+     */
+    public synchronized void putItem(InventoryItem item) {
+        List<InventoryItem> items = new ArrayList<>(this.items);
+        int index = indexOf(items, item.getId());
+        if (index < 0) {
+            items.add(item);
+        } else if (items.get(index) != item) {
+            items.set(index, item);
+        } else {
+            return;
+        }
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * Set the quantity of the item with an id
+     *
+     * @param itemId   the id of the item
+     * @param quantity the new quantity
+     */
+    public synchronized void setItemQuantity(int itemId, int quantity) {
+        int index = indexOf(items, itemId);
+        if (index >= 0) {
+            items.get(index).setQuantity(quantity);
+        }
     }
 
     /**
@@ -95,7 +144,38 @@ public class Inventory {
      *
      * @param item the item to remove
      */
-    public void removeItem(InventoryItem item) {
-        items.remove(item);
+    public synchronized void removeItem(InventoryItem item) {
+        List<InventoryItem> items = new ArrayList<>(this.items);
+        if (items.remove(item)) {
+            this.items = List.copyOf(items);
+        }
+    }
+
+    /**
+     * Remove the item with an id from the inventory
+     *
+     * @param itemId the id of the item to remove
+     */
+    public synchronized void removeItemById(int itemId) {
+        List<InventoryItem> items = new ArrayList<>(this.items);
+        if (items.removeIf(item -> item.getId() == itemId)) {
+            this.items = List.copyOf(items);
+        }
+    }
+
+    /**
+     * Find the position of the item with an id
+     *
+     * @param items  the items
+     * @param itemId the id of the item
+     * @return the position of the item, or -1 if not found
+     */
+    private static int indexOf(List<InventoryItem> items, int itemId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId() == itemId) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
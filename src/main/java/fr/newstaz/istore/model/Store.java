@@ -5,6 +5,10 @@ import java.util.List;
 
 /**
  * Store class to manage the store
+ * <p>
+ * The employees are copied on write: a change replaces the list, so the list returned by
+ * {@link #getEmployees()} is read-only and can be iterated while the store is changed from another thread.
+ * </p>
  *
  * @version 1.0
  */
@@ -34,7 +38,7 @@ public class Store {
      * @see #isEmployee(User)
      * @see #isEmployee(String)
      */
-    private final List<User> employees = new ArrayList<>();
+    private volatile List<User> employees = List.of();
 
     /**
      * The inventory of the store
@@ -85,7 +89,7 @@ public class Store {
     /**
      * Get the list of employees
      *
-     * @return the list of employees
+     * @return the read-only list of employees
      */
     public List<User> getEmployees() {
         return employees;
@@ -97,26 +101,33 @@ public class Store {
      * @param employees the list of employees
      */
     public void setEmployees(List<User> employees) {
-        this.employees.clear();
-        this.employees.addAll(employees);
+        this.employees = List.copyOf(employees);
     }
 
     /**
-     * Add an employee
+     * Add an employee, unless a user with the same id is already an employee
      *
      * @param user the user to add
      */
-    public void addEmployee(User user) {
+    public synchronized void addEmployee(User user) {
+        if (employees.stream().anyMatch(employee -> employee.getId() == user.getId())) {
+            return;
+        }
+        List<User> employees = new ArrayList<>(this.employees);
         employees.add(user);
+        this.employees = List.copyOf(employees);
     }
 
     /**
-     * Remove an employee
+     * Remove an employee, matched by id
      *
      * @param user the user to remove
      */
-    public void removeEmployee(User user) {
-        employees.remove(user);
+    public synchronized void removeEmployee(User user) {
+        List<User> employees = new ArrayList<>(this.employees);
+        if (employees.removeIf(employee -> employee.getId() == user.getId())) {
+            this.employees = List.copyOf(employees);
+        }
     }
 
     /**
@@ -0,0 +1,105 @@
+package fr.newstaz.istore.repository;
+
+import fr.newstaz.istore.model.Inventory;
+import fr.newstaz.istore.model.InventoryItem;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncInventoryRepository interface to manage the inventory repository without blocking the caller
+ * <p>
+ * Every operation runs on the database executor. Failures complete the returned future exceptionally.
+ * </p>
+ *
+ * @version 1.0
+ * @see Inventory
+ * @see InventoryRepository
+ */
+public interface AsyncInventoryRepository {
+
+    /**
+     * Create an inventory
+     *
+     * @param inventory the inventory to create
+     * @return the future completed once the inventory is created
+     */
+    CompletableFuture<Void> createInventory(Inventory inventory);
+
+    /**
+     * Get the inventory of a store
+     *
+     * @param id the id of the store
+     * @return the future of the inventory
+     */
+    CompletableFuture<Inventory> getInventory(int id);
+
+    /**
+     * Get all the inventories with their items
+     *
+     * @return the future of the list of all inventories
+     */
+    CompletableFuture<List<Inventory>> getAllInventories();
+
+    /**
+     * Update an inventory
+     *
+     * @param inventory the inventory to update
+     * @return the future completed once the inventory is updated
+     */
+    CompletableFuture<Void> updateInventory(Inventory inventory);
+
+    /**
+     * Delete an inventory
+     *
+     * @param inventory the inventory to delete
+     * @return the future completed once the inventory is deleted
+     */
+    CompletableFuture<Void> deleteInventory(Inventory inventory);
+
+    /**
+     * Get an item of the inventory of a store by name
+     *
+     * @param storeId the id of the store
+     * @param name    the name of the item
+     * @return the future of the item
+     */
+    CompletableFuture<InventoryItem> getItem(int storeId, String name);
+
+    /**
+     * Add an item to an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to add
+     * @return the future of the created item with its id
+     */
+    CompletableFuture<InventoryItem> addItemToInventory(Inventory inventory, InventoryItem item);
+
+    /**
+     * Update an item in an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to update
+     * @return the future completed once the item is updated
+     */
+    CompletableFuture<Void> updateItemInInventory(Inventory inventory, InventoryItem item);
+
+    /**
+     * Add a delta to the quantity of an item atomically
+     *
+     * @param inventory the inventory
+     * @param item      the item to adjust
+     * @param delta     the quantity to add (negative to remove)
+     * @return the future of the new quantity, null if the item doesn't exist or the quantity would become negative
+     */
+    CompletableFuture<Integer> adjustQuantity(Inventory inventory, InventoryItem item, int delta);
+
+    /**
+     * Delete an item from an inventory
+     *
+     * @param inventory the inventory
+     * @param item      the item to delete
+     * @return the future completed once the item is deleted
+     */
+    CompletableFuture<Void> deleteItemFromInventory(Inventory inventory, InventoryItem item);
+}
@@ -0,0 +1,129 @@
+package fr.newstaz.istore.repository;
+
+import fr.newstaz.istore.model.Store;
+import fr.newstaz.istore.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncStoreRepository interface to manage the store repository without blocking the caller
+ * <p>
+ * Every operation runs on the database executor. Failures complete the returned future exceptionally.
+ * </p>
+ *
+ * @version 1.0
+ * @see Store
+ * @see StoreRepository
+ */
+public interface AsyncStoreRepository {
+
+    /**
+     * Create a store
+     *
+     * @param store the store to create
+     * @return the future of the created store
+     */
+    CompletableFuture<Store> createStore(Store store);
+
+    /**
+     * Get a store by name
+     *
+     * @param name the name of the store
+     * @return the future of the store
+     */
+    CompletableFuture<Store> getStore(String name);
+
+    /**
+     * Delete a store
+     *
+     * @param store the store to delete
+     * @return the future completed once the store is deleted
+     */
+    CompletableFuture<Void> deleteStore(Store store);
+
+    /**
+     * Get all stores
+     *
+     * @return the future of the list of all stores
+     */
+    CompletableFuture<List<Store>> getAllStores();
+
+    /**
+     * Search the stores whose name contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of stores
+     * @return the future of the matching stores, best matches first
+     */
+    CompletableFuture<List<Store>> searchStores(String text, int limit);
+
+    /**
+     * Add an employee to a store
+     *
+     * @param store the store
+     * @param user  the user to add
+     * @return the future completed once the employee is added
+     */
+    CompletableFuture<Void> addEmployee(Store store, User user);
+
+    /**
+     * Check if an employee is already added to a store
+     *
+     * @param user  the user
+     * @param store the store
+     * @return the future of true if the employee is already added, false otherwise
+     */
+    CompletableFuture<Boolean> isEmployeeAlreadyAdded(User user, Store store);
+
+    /**
+     * Get all employees of a store
+     *
+     * @param store the store
+     * @return the future of the list of all employees
+     */
+    CompletableFuture<List<User>> getEmployees(Store store);
+
+    /**
+     * Remove an employee from a store
+     *
+     * @param store the store
+     * @param user  the user to remove
+     * @return the future completed once the employee is removed
+     */
+    CompletableFuture<Void> removeEmployee(Store store, User user);
+
+    /**
+     * Get all employees with a permission on a store
+     *
+     * @param store the store
+     * @return the future of the list of employees
+     */
+    CompletableFuture<List<User>> getEmployeesPermissions(Store store);
+
+    /**
+     * Add a permission on a store to an employee
+     *
+     * @param store the store
+     * @param user  the user
+     * @return the future completed once the permission is added
+     */
+    CompletableFuture<Void> addEmployeePermission(Store store, User user);
+
+    /**
+     * Remove a permission on a store from an employee
+     *
+     * @param store the store
+     * @param user  the user
+     * @return the future completed once the permission is removed
+     */
+    CompletableFuture<Void> removeEmployeePermission(Store store, User user);
+
+    /**
+     * Get the ids of the stores a user has a permission on
+     *
+     * @param user the user
+     * @return the future of the ids of the stores
+     */
+    CompletableFuture<List<Integer>> getPermittedStoreIds(User user);
+}
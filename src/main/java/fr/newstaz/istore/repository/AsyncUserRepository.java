@@ -0,0 +1,103 @@
+package fr.newstaz.istore.repository;
+
+import fr.newstaz.istore.model.User;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AsyncUserRepository interface to manage the user repository without blocking the caller
+ * <p>
+ * Every operation runs on the database executor. Failures complete the returned future exceptionally.
+ * </p>
+ *
+ * @version 1.0
+ * @see User
+ * @see UserRepository
+ */
+public interface AsyncUserRepository {
+
+    /**
+     * Create a user
+     *
+     * @param user the user to create
+     * @return the future completed once the user is created
+     */
+    CompletableFuture<Void> createUser(User user);
+
+    /**
+     * Get a user by id
+     *
+     * @param id the id of the user
+     * @return the future of the user
+     */
+    CompletableFuture<User> getUser(int id);
+
+    /**
+     * Get a user by login
+     *
+     * @param login the login of the user
+     * @return the future of the user
+     */
+    CompletableFuture<User> getUser(String login);
+
+    /**
+     * Get a user by id
+     *
+     * @param id the id of the user
+     * @return the future of the user
+     */
+    CompletableFuture<User> getUserById(int id);
+
+    /**
+     * Update a user
+     *
+     * @param user the user to update
+     * @return the future completed once the user is updated
+     */
+    CompletableFuture<Void> updateUser(User user);
+
+    /**
+     * Delete a user
+     *
+     * @param user the user to delete
+     * @return the future completed once the user is deleted
+     */
+    CompletableFuture<Void> deleteUser(User user);
+
+    /**
+     * Get all users
+     *
+     * @return the future of the list of all users
+     */
+    CompletableFuture<List<User>> getAllUsers();
+
+    /**
+     * Get all users, unless the request is cancelled before it runs on the executor
+     *
+     * @param cancelled whether the request is no longer wanted
+     * @return the future of the list of all users, failed with a {@link CancellationException} if cancelled
+     */
+    CompletableFuture<List<User>> getAllUsers(BooleanSupplier cancelled);
+
+    /**
+     * Search the users whose email contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of users
+     * @return the future of the matching users, best matches first
+     */
+    CompletableFuture<List<User>> searchUsers(String text, int limit);
+
+    /**
+     * Search the users whose email contains a text, unless the search is cancelled before it runs on the executor
+     *
+     * @param text      the text to search
+     * @param limit     the maximum number of users
+     * @param cancelled whether the search is no longer wanted
+     * @return the future of the matching users, failed with a {@link CancellationException} if cancelled
+     */
+    CompletableFuture<List<User>> searchUsers(String text, int limit, BooleanSupplier cancelled);
+}
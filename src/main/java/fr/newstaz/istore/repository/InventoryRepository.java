@@ -3,6 +3,8 @@ package fr.newstaz.istore.repository;
 import fr.newstaz.istore.model.Inventory;
 import fr.newstaz.istore.model.InventoryItem;
 
+import java.util.List;
+
 /**
  * InventoryRepository interface to manage the inventory repository
  *
@@ -26,6 +28,13 @@ public interface InventoryRepository {
      */
     Inventory getInventory(int id);
 
+    /**
+     * Get all the inventories with their items
+     *
+     * @return the list of all inventories
+     */
+    List<Inventory> getAllInventories();
+
     /**
      * Update an inventory
      *
@@ -40,13 +49,23 @@ public interface InventoryRepository {
      */
     void deleteInventory(Inventory inventory);
 
+    /**
+     * Get an item of the inventory of a store by name
+     *
+     * @param storeId the id of the store
+     * @param name    the name of the item
+     * @return the item or null if not found
+     */
+    InventoryItem getItem(int storeId, String name);
+
     /**
      * Add an item to an inventory
      *
      * @param inventory the inventory
      * @param item      the item to add
+     * @return the created item with its id
      */
-    void addItemToInventory(Inventory inventory, InventoryItem item);
+    InventoryItem addItemToInventory(Inventory inventory, InventoryItem item);
 
     /**
      * Update an item in an inventory
@@ -56,6 +75,17 @@ public interface InventoryRepository {
      */
     void updateItemInInventory(Inventory inventory, InventoryItem item);
 
+    /**
+     * Add a delta to the quantity of an item atomically
+     * The quantity is never made negative
+     *
+     * @param inventory the inventory
+     * @param item      the item to adjust
+     * @param delta     the quantity to add (negative to remove)
+     * @return the new quantity or null if the item doesn't exist or the quantity would become negative
+     */
+    Integer adjustQuantity(Inventory inventory, InventoryItem item, int delta);
+
     /**
      * Delete an item from an inventory
      *
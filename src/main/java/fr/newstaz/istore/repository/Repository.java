@@ -1,8 +1,12 @@
 package fr.newstaz.istore.repository;
 
+import fr.newstaz.istore.async.AsyncInventoryRepositoryAdapter;
+import fr.newstaz.istore.async.AsyncStoreRepositoryAdapter;
+import fr.newstaz.istore.async.AsyncUserRepositoryAdapter;
+import fr.newstaz.istore.cache.CacheWarmUp;
+import fr.newstaz.istore.cache.InventoryCache;
 import fr.newstaz.istore.cache.StoreCache;
 import fr.newstaz.istore.cache.UserCache;
-import fr.newstaz.istore.dao.InventoryDAO;
 import fr.newstaz.istore.database.Database;
 
 
@@ -39,6 +43,34 @@ public class Repository {
      */
     private final InventoryRepository inventoryRepository;
 
+    /**
+     * AsyncUserRepository instance
+     *
+     * @see AsyncUserRepository
+     */
+    private final AsyncUserRepository asyncUserRepository;
+
+    /**
+     * AsyncStoreRepository instance
+     *
+     * @see AsyncStoreRepository
+     */
+    private final AsyncStoreRepository asyncStoreRepository;
+
+    /**
+     * AsyncInventoryRepository instance
+     *
+     * @see AsyncInventoryRepository
+     */
+    private final AsyncInventoryRepository asyncInventoryRepository;
+
+    /**
+     * CacheWarmUp instance
+     *
+     * @see CacheWarmUp
+     */
+    private final CacheWarmUp warmUp;
+
     /**
      * Constructor
      *
@@ -46,8 +78,12 @@ public class Repository {
      */
     public Repository(Database database) {
         this.userRepository = new UserCache(database);
-        this.inventoryRepository = new InventoryDAO(database);
+        this.inventoryRepository = new InventoryCache(database);
         this.storeRepository = new StoreCache(database, inventoryRepository);
+        this.asyncUserRepository = new AsyncUserRepositoryAdapter(database, userRepository);
+        this.asyncStoreRepository = new AsyncStoreRepositoryAdapter(database, storeRepository);
+        this.asyncInventoryRepository = new AsyncInventoryRepositoryAdapter(database, inventoryRepository);
+        this.warmUp = new CacheWarmUp(database, userRepository, storeRepository);
     }
 
     /**
@@ -76,4 +112,40 @@ public class Repository {
     public InventoryRepository getInventoryRepository() {
         return inventoryRepository;
     }
+
+    /**
+     * Get the AsyncUserRepository
+     *
+     * @return the AsyncUserRepository
+     */
+    public AsyncUserRepository getAsyncUserRepository() {
+        return asyncUserRepository;
+    }
+
+    /**
+     * Get the AsyncStoreRepository
+     *
+     * @return the AsyncStoreRepository
+     */
+    public AsyncStoreRepository getAsyncStoreRepository() {
+        return asyncStoreRepository;
+    }
+
+    /**
+     * Get the AsyncInventoryRepository
+     *
+     * @return the AsyncInventoryRepository
+     */
+    public AsyncInventoryRepository getAsyncInventoryRepository() {
+        return asyncInventoryRepository;
+    }
+
+    /**
+     * Get the warm-up of the caches (started by {@link CacheWarmUp#start()})
+     *
+     * @return the CacheWarmUp
+     */
+    public CacheWarmUp getWarmUp() {
+        return warmUp;
+    }
 }
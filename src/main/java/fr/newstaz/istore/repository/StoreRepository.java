@@ -43,6 +43,15 @@ public interface StoreRepository {
      */
     List<Store> getAllStores();
 
+    /**
+     * Search the stores whose name contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of stores
+     * @return the matching stores, best matches first
+     */
+    List<Store> searchStores(String text, int limit);
+
     /**
      * Add an employee to a store
      *
@@ -101,4 +110,12 @@ public interface StoreRepository {
      */
     void removeEmployeePermission(Store store, User user);
 
+    /**
+     * Get the ids of the stores a user has a permission on
+     *
+     * @param user the user
+     * @return the ids of the stores
+     */
+    List<Integer> getPermittedStoreIds(User user);
+
 }
\ No newline at end of file
@@ -62,4 +62,13 @@ public interface UserRepository {
      * @return the list of all users
      */
     List<User> getAllUsers();
+
+    /**
+     * Search the users whose email contains a text, ignoring case
+     *
+     * @param text  the text to search
+     * @param limit the maximum number of users
+     * @return the matching users, best matches first
+     */
+    List<User> searchUsers(String text, int limit);
 }
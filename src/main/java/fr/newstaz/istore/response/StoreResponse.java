@@ -26,6 +26,10 @@ public record StoreResponse(boolean success, String message) {
 
     }
 
+    public record AdjustInventoryItemResponse(boolean success, String message, int quantity) {
+
+    }
+
     public record AddPermissionResponse(boolean success, String message) {
 
     }
@@ -0,0 +1,111 @@
+package fr.newstaz.istore.security;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashingPolicy record holding the BCrypt cost used to hash the passwords
+ * <p>
+ * The cost is the base 2 logarithm of the number of rounds, each step doubling the hashing time.
+ * {@link #calibrate(long)} measures the host to pick the highest cost whose verification stays
+ * within a target time, and {@link #needsRehash(String)} tells which hashes were made with a lower cost.
+ * A hash with a higher cost is kept: it is at least as strong, and rehashing it would lower its cost.
+ * </p>
+ *
+ * @param cost         the BCrypt cost of the new hashes
+ * @param targetMillis the target verification time the cost was chosen for
+ * @version 1.0
+ * @see PasswordHasher
+ */
+public record HashingPolicy(int cost, long targetMillis) {
+
+    /**
+     * The lowest cost ever used, whatever the speed of the host
+     */
+    public static final int MIN_COST = 10;
+
+    /**
+     * The highest cost picked by the calibration
+     */
+    public static final int MAX_COST = 20;
+
+    /**
+     * The cost of {@link BCrypt#gensalt()}, used until a policy is configured or calibrated
+     */
+    public static final int DEFAULT_COST = 10;
+
+    /**
+     * The number of measured hashes of the calibration (the fastest one is kept)
+     */
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    /**
+     * Generate a salt with the cost of the policy
+     *
+     * @return the salt
+     */
+    public String gensalt() {
+        return BCrypt.gensalt(cost);
+    }
+
+    /**
+     * Check if a hash was made with a lower cost than the one of the policy
+     *
+     * @param hash the hash
+     * @return true if the password should be hashed again, false otherwise (or if the hash is not a BCrypt one)
+     */
+    public boolean needsRehash(String hash) {
+        int hashCost = costOf(hash);
+        return hashCost > 0 && hashCost < cost;
+    }
+
+    /**
+     * Read the cost of a BCrypt hash ({@code $2a$10$...})
+     *
+     * @param hash the hash
+     * @return the cost, or 0 if the hash is not a BCrypt one
+     */
+    public static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$') {
+            return 0;
+        }
+        int separator = hash.indexOf('$', 1);
+        if (separator < 0 || separator + 3 >= hash.length() || hash.charAt(separator + 3) != '$') {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(hash.substring(separator + 1, separator + 3));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Measure the host to pick the highest cost whose hashing time stays within a target
+     * The time at {@link #MIN_COST} is measured, then doubled for each higher cost
+     *
+     * @param targetMillis the target verification time in milliseconds
+     * @return the calibrated policy, never below {@link #MIN_COST}
+     */
+    public static HashingPolicy calibrate(long targetMillis) {
+        BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            String salt = BCrypt.gensalt(MIN_COST);
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int cost = MIN_COST;
+        long estimated = fastest;
+        while (cost < MAX_COST && estimated * 2 <= targetNanos) {
+            estimated *= 2;
+            cost++;
+        }
+        return new HashingPolicy(cost, targetMillis);
+    }
+}
@@ -0,0 +1,135 @@
+package fr.newstaz.istore.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram class to record latencies in power of two buckets of milliseconds
+ * <p>
+ * Bucket i counts the latencies below 2^i milliseconds (the first one those below 1 ms),
+ * the last bucket counts everything above. Recording is lock-free and percentiles
+ * are estimated with the upper bound of their bucket.
+ * </p>
+ *
+ * @version 1.0
+ * @see PasswordHasher
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of buckets, the last one holding the latencies above 2^(BUCKETS - 2) milliseconds
+     */
+    private static final int BUCKETS = 16;
+
+    /**
+     * The number of recorded latencies by bucket
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The number of recorded latencies
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of the recorded latencies in nanoseconds
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * The highest recorded latency in nanoseconds
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a latency
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+        int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Get the number of recorded latencies
+     *
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the average recorded latency
+     *
+     * @return the average latency in milliseconds
+     */
+    public double getAverageMillis() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the highest recorded latency
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public double getMaxMillis() {
+        return (double) maxNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Estimate a percentile of the recorded latencies
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile in milliseconds (the maximum for the last bucket)
+     */
+    public double getPercentileMillis(double percentile) {
+        long recorded = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * recorded);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(1L << i, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Get the number of recorded latencies by bucket
+     *
+     * @return the counts, bucket i holding the latencies below 2^i milliseconds
+     */
+    public long[] getBuckets() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, avg=%.2fms, p50<=%.0fms, p90<=%.0fms, p99<=%.0fms, max=%.2fms",
+                getCount(), getAverageMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), getMaxMillis());
+    }
+}
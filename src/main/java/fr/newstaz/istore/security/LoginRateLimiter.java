@@ -0,0 +1,419 @@
+package fr.newstaz.istore.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import fr.newstaz.istore.AppConfig;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoginRateLimiter class to limit the login attempts before any password is verified
+ * <p>
+ * Each email has a token bucket, and a global bucket bounds the attempts of all the emails together.
+ * A bucket is a single {@link AtomicLong} holding the time its next token is due
+ * (the generic cell rate algorithm): taking a token is one compare-and-set, no lock is ever held.
+ * The bucket of the email is checked first, so an email flooding the login only drains its own bucket,
+ * and its token is given back when the global bucket rejects the attempt.
+ * </p>
+ * <p>
+ * After a number of consecutive failures an email is locked out, the lockout doubling with every
+ * further failure up to a maximum. A successful login resets the failures of the email.
+ * A rejected attempt only costs a few atomic reads and never reaches BCrypt.
+ * </p>
+ *
+ * @version 1.0
+ * @see fr.newstaz.istore.controller.AuthenticationController
+ */
+public class LoginRateLimiter {
+
+    /**
+     * The default number of attempts an email can make at once
+     */
+    public static final int DEFAULT_EMAIL_BURST = 5;
+
+    /**
+     * The default time to get back an attempt of an email
+     */
+    public static final long DEFAULT_EMAIL_REFILL_MILLIS = 6_000L;
+
+    /**
+     * The default number of attempts all the emails can make at once
+     */
+    public static final int DEFAULT_GLOBAL_BURST = 50;
+
+    /**
+     * The default time to get back a global attempt
+     */
+    public static final long DEFAULT_GLOBAL_REFILL_MILLIS = 20L;
+
+    /**
+     * The default number of consecutive failures locking out an email
+     */
+    public static final int DEFAULT_LOCKOUT_THRESHOLD = 5;
+
+    /**
+     * The default duration of the first lockout
+     */
+    public static final long DEFAULT_LOCKOUT_BASE_MILLIS = 1_000L;
+
+    /**
+     * The default maximum duration of a lockout
+     */
+    public static final long DEFAULT_LOCKOUT_MAX_MILLIS = 900_000L;
+
+    /**
+     * The default maximum number of emails tracked at once
+     */
+    public static final int DEFAULT_MAX_TRACKED_EMAILS = 100_000;
+
+    /**
+     * The time between two tokens of an email bucket in nanoseconds
+     */
+    private final long emailInterval;
+
+    /**
+     * How far ahead of now an email bucket can be booked in nanoseconds (the burst minus one token)
+     */
+    private final long emailTolerance;
+
+    /**
+     * The time between two tokens of the global bucket in nanoseconds
+     */
+    private final long globalInterval;
+
+    /**
+     * How far ahead of now the global bucket can be booked in nanoseconds
+     */
+    private final long globalTolerance;
+
+    /**
+     * The number of consecutive failures locking out an email
+     */
+    private final int lockoutThreshold;
+
+    /**
+     * The duration of the first lockout in nanoseconds
+     */
+    private final long lockoutBase;
+
+    /**
+     * The maximum duration of a lockout in nanoseconds
+     */
+    private final long lockoutMax;
+
+    /**
+     * The time the next global token is due
+     */
+    private final AtomicLong globalBucket = new AtomicLong(System.nanoTime());
+
+    /**
+     * The state of the emails, dropped once idle longer than the longest lockout
+     * or, least recently used first, when too many emails are tracked
+     */
+    private final Cache<String, EmailState> emails;
+
+    /**
+     * The number of allowed attempts
+     */
+    private final LongAdder allowed = new LongAdder();
+
+    /**
+     * The number of attempts rejected because the email was locked out
+     */
+    private final LongAdder rejectedLockedOut = new LongAdder();
+
+    /**
+     * The number of attempts rejected by the bucket of their email
+     */
+    private final LongAdder rejectedEmailRate = new LongAdder();
+
+    /**
+     * The number of attempts rejected by the global bucket
+     */
+    private final LongAdder rejectedGlobalRate = new LongAdder();
+
+    /**
+     * The number of lockouts
+     */
+    private final LongAdder lockouts = new LongAdder();
+
+    /**
+     * Constructor with the default limits
+     */
+    public LoginRateLimiter() {
+        this(DEFAULT_EMAIL_BURST, DEFAULT_EMAIL_REFILL_MILLIS, DEFAULT_GLOBAL_BURST, DEFAULT_GLOBAL_REFILL_MILLIS,
+                DEFAULT_LOCKOUT_THRESHOLD, DEFAULT_LOCKOUT_BASE_MILLIS, DEFAULT_LOCKOUT_MAX_MILLIS, DEFAULT_MAX_TRACKED_EMAILS);
+    }
+
+    /**
+     * Constructor with the application configuration
+     *
+     * @param appConfig the application configuration
+     */
+    public LoginRateLimiter(AppConfig appConfig) {
+        this(appConfig.getLoginEmailBurst(), appConfig.getLoginEmailRefillMillis(),
+                appConfig.getLoginGlobalBurst(), appConfig.getLoginGlobalRefillMillis(),
+                appConfig.getLoginLockoutThreshold(), appConfig.getLoginLockoutBaseMillis(), appConfig.getLoginLockoutMaxMillis(),
+                appConfig.getLoginMaxTrackedEmails());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param emailBurst         the number of attempts an email can make at once
+     * @param emailRefillMillis  the time to get back an attempt of an email
+     * @param globalBurst        the number of attempts all the emails can make at once
+     * @param globalRefillMillis the time to get back a global attempt
+     * @param lockoutThreshold   the number of consecutive failures locking out an email
+     * @param lockoutBaseMillis  the duration of the first lockout
+     * @param lockoutMaxMillis   the maximum duration of a lockout
+     * @param maxTrackedEmails   the maximum number of emails tracked at once
+     */
+    public LoginRateLimiter(int emailBurst, long emailRefillMillis, int globalBurst, long globalRefillMillis,
+                            int lockoutThreshold, long lockoutBaseMillis, long lockoutMaxMillis, int maxTrackedEmails) {
+        this.emailInterval = TimeUnit.MILLISECONDS.toNanos(emailRefillMillis);
+        this.emailTolerance = emailInterval * Math.max(0, emailBurst - 1);
+        this.globalInterval = TimeUnit.MILLISECONDS.toNanos(globalRefillMillis);
+        this.globalTolerance = globalInterval * Math.max(0, globalBurst - 1);
+        this.lockoutThreshold = lockoutThreshold;
+        this.lockoutBase = TimeUnit.MILLISECONDS.toNanos(lockoutBaseMillis);
+        this.lockoutMax = TimeUnit.MILLISECONDS.toNanos(lockoutMaxMillis);
+        this.emails = CacheBuilder.newBuilder()
+                .expireAfterAccess(Math.max(lockoutMaxMillis, emailRefillMillis * Math.max(1, emailBurst)), TimeUnit.MILLISECONDS)
+                .maximumSize(maxTrackedEmails)
+                .build();
+    }
+
+    /**
+     * Get a limiter that never rejects nor locks out an attempt
+     *
+     * @return the limiter
+     */
+    public static LoginRateLimiter unlimited() {
+        return new LoginRateLimiter(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0, 0, DEFAULT_MAX_TRACKED_EMAILS);
+    }
+
+    /**
+     * Try to take an attempt for an email
+     *
+     * @param email the email of the attempt
+     * @return 0 if the attempt is allowed, otherwise the time to wait before the next attempt in milliseconds (at least 1)
+     */
+    public long tryAcquire(String email) {
+        long now = System.nanoTime();
+        String key = normalize(email);
+        EmailState state = emails.getIfPresent(key);
+
+        if (state != null) {
+            long lockedFor = state.lockedUntil.get() - now;
+            if (lockedFor > 0) {
+                rejectedLockedOut.increment();
+                return toMillis(lockedFor);
+            }
+        }
+
+        if (state == null) {
+            state = getState(key);
+        }
+        long emailWait = take(state.bucket, now, emailInterval, emailTolerance);
+        if (emailWait > 0) {
+            rejectedEmailRate.increment();
+            return toMillis(emailWait);
+        }
+
+        long globalWait = take(globalBucket, now, globalInterval, globalTolerance);
+        if (globalWait > 0) {
+            refund(state.bucket, emailInterval);
+            rejectedGlobalRate.increment();
+            return toMillis(globalWait);
+        }
+
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Record a failed attempt, locking out the email once it failed too many times in a row
+     *
+     * @param email the email of the attempt
+     */
+    public void recordFailure(String email) {
+        EmailState state = getState(normalize(email));
+        int failures = state.failures.incrementAndGet();
+        if (failures < lockoutThreshold) {
+            return;
+        }
+        long lockout = lockoutBase;
+        for (int i = lockoutThreshold; i < failures && lockout < lockoutMax; i++) {
+            lockout *= 2;
+        }
+        lockout = Math.min(lockout, lockoutMax);
+        state.lockedUntil.accumulateAndGet(System.nanoTime() + lockout, Math::max);
+        lockouts.increment();
+    }
+
+    /**
+     * Record a successful attempt, resetting the failures of the email
+     *
+     * @param email the email of the attempt
+     */
+    public void recordSuccess(String email) {
+        EmailState state = emails.getIfPresent(normalize(email));
+        if (state != null) {
+            state.failures.set(0);
+        }
+    }
+
+    /**
+     * Get the number of allowed attempts
+     *
+     * @return the number of allowed attempts
+     */
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    /**
+     * Get the number of attempts rejected because their email was locked out
+     *
+     * @return the number of rejected attempts
+     */
+    public long getRejectedLockedOut() {
+        return rejectedLockedOut.sum();
+    }
+
+    /**
+     * Get the number of attempts rejected by the bucket of their email
+     *
+     * @return the number of rejected attempts
+     */
+    public long getRejectedEmailRate() {
+        return rejectedEmailRate.sum();
+    }
+
+    /**
+     * Get the number of attempts rejected by the global bucket
+     *
+     * @return the number of rejected attempts
+     */
+    public long getRejectedGlobalRate() {
+        return rejectedGlobalRate.sum();
+    }
+
+    /**
+     * Get the number of rejected attempts, whatever the reason
+     *
+     * @return the number of rejected attempts
+     */
+    public long getRejected() {
+        return getRejectedLockedOut() + getRejectedEmailRate() + getRejectedGlobalRate();
+    }
+
+    /**
+     * Get the number of lockouts
+     *
+     * @return the number of lockouts
+     */
+    public long getLockouts() {
+        return lockouts.sum();
+    }
+
+    /**
+     * Take a token from a bucket
+     *
+     * @param bucket    the time the next token of the bucket is due
+     * @param now       the current time
+     * @param interval  the time between two tokens
+     * @param tolerance how far ahead of now the bucket can be booked
+     * @return 0 if a token was taken, otherwise the time until a token is available in nanoseconds
+     */
+    private static long take(AtomicLong bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long due = bucket.get();
+            long start = due - now < 0 ? now : due;
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (bucket.compareAndSet(due, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken from a bucket
+     *
+     * @param bucket   the time the next token of the bucket is due
+     * @param interval the time between two tokens
+     */
+    private static void refund(AtomicLong bucket, long interval) {
+        bucket.addAndGet(-interval);
+    }
+
+    /**
+     * Get the state of an email, creating it if needed
+     *
+     * @param key the normalized email
+     * @return the state of the email
+     */
+    private EmailState getState(String key) {
+        try {
+            return emails.get(key, EmailState::new);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Normalize an email so that its case doesn't give more attempts
+     *
+     * @param email the email
+     * @return the normalized email
+     */
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Convert a wait to milliseconds, rounded up
+     *
+     * @param nanos the wait in nanoseconds
+     * @return the wait in milliseconds, at least 1
+     */
+    private static long toMillis(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("allowed=%d, rejected=%d (locked out %d, email rate %d, global rate %d), lockouts=%d",
+                getAllowed(), getRejected(), getRejectedLockedOut(), getRejectedEmailRate(), getRejectedGlobalRate(), getLockouts());
+    }
+
+    /**
+     * EmailState class holding the bucket, the failures and the lockout of an email
+     */
+    private static final class EmailState {
+
+        /**
+         * The time the next token of the email is due
+         */
+        private final AtomicLong bucket = new AtomicLong(System.nanoTime());
+
+        /**
+         * The number of consecutive failures
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * The end of the lockout (in the past when not locked out)
+         */
+        private final AtomicLong lockedUntil = new AtomicLong(System.nanoTime());
+    }
+}
@@ -0,0 +1,294 @@
+package fr.newstaz.istore.security;
+
+import fr.newstaz.istore.AppConfig;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * PasswordHasher class to hash and verify passwords with BCrypt on a dedicated pool
+ * <p>
+ * BCrypt costs tens to hundreds of milliseconds of CPU, so the pool has one thread per core
+ * and a bounded queue. When the queue is full the operation is rejected right away
+ * (the future fails with a {@link RejectedExecutionException}) instead of running on the
+ * caller thread, which is usually the Swing event dispatch thread.
+ * </p>
+ * <p>
+ * The latency (queue and run time) and the run time of every operation are recorded
+ * in a {@link LatencyHistogram} per {@link Operation}.
+ * </p>
+ * <p>
+ * New hashes use the cost of the {@link HashingPolicy}. Without a configured cost, the pool first
+ * calibrates the host against the target verification time, new hashes using the default cost meanwhile.
+ * No hash is reported as needing a rehash before the calibration is done, so that the logins in between
+ * don't rehash the passwords with the default cost.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class PasswordHasher {
+
+    /**
+     * The default capacity of the queue of pending operations
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    /**
+     * The message of a response whose password operation was rejected
+     */
+    public static final String BUSY_MESSAGE = "Too many requests, try again later";
+
+    /**
+     * The operations of the hasher
+     */
+    public enum Operation {
+        /**
+         * Hash a password
+         */
+        HASH,
+        /**
+         * Check a password against a hash
+         */
+        VERIFY
+    }
+
+    /**
+     * The pool running the operations
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The latency (queue and run time) of the operations
+     */
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    /**
+     * The run time of the operations
+     */
+    private final Map<Operation, LatencyHistogram> runTimes = new EnumMap<>(Operation.class);
+
+    /**
+     * The number of operations rejected because the queue was full
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The policy of the new hashes, replaced once the calibration is done
+     */
+    private volatile HashingPolicy policy;
+
+    /**
+     * True once the cost of the policy is final (configured or calibrated)
+     */
+    private volatile boolean calibrated;
+
+    /**
+     * Constructor with one thread per core, the default queue capacity and the default cost
+     */
+    public PasswordHasher() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, new HashingPolicy(HashingPolicy.DEFAULT_COST, 0));
+    }
+
+    /**
+     * Constructor with the application configuration
+     * Without a configured cost, the host is calibrated on the pool before any other operation
+     *
+     * @param appConfig the application configuration
+     */
+    public PasswordHasher(AppConfig appConfig) {
+        this(appConfig.getPasswordHashingThreads(), appConfig.getPasswordHashingQueueCapacity(),
+                new HashingPolicy(appConfig.getBcryptCost() > 0 ? appConfig.getBcryptCost() : HashingPolicy.DEFAULT_COST, appConfig.getBcryptTargetMillis()));
+        if (appConfig.getBcryptCost() <= 0) {
+            calibrated = false;
+            calibrate(appConfig.getBcryptTargetMillis());
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param threads       the number of threads hashing the passwords
+     * @param queueCapacity the maximum number of pending operations
+     * @param policy        the policy of the new hashes
+     */
+    public PasswordHasher(int threads, int queueCapacity, HashingPolicy policy) {
+        this.policy = policy;
+        this.calibrated = true;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "istore-password-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            runTimes.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Hash a password with a new salt
+     *
+     * @param password the password
+     * @return the future of the hash
+     */
+    public CompletableFuture<String> hash(String password) {
+        return submit(Operation.HASH, () -> BCrypt.hashpw(password, policy.gensalt()));
+    }
+
+    /**
+     * Check a password against a hash
+     *
+     * @param password the password
+     * @param hash     the hash
+     * @return the future of true if the password matches, false otherwise (or if the hash is invalid)
+     */
+    public CompletableFuture<Boolean> verify(String password, String hash) {
+        return submit(Operation.VERIFY, () -> {
+            try {
+                return BCrypt.checkpw(password, hash);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Check if a hash should be made again with the cost of the current policy
+     *
+     * @param hash the hash
+     * @return true if the hash was made with a lower cost, false otherwise (or while the calibration is running)
+     */
+    public boolean needsRehash(String hash) {
+        return calibrated && policy.needsRehash(hash);
+    }
+
+    /**
+     * Get the policy of the new hashes
+     *
+     * @return the hashing policy
+     */
+    public HashingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Pick the cost of the new hashes on the pool, ahead of the other operations
+     *
+     * @param targetMillis the target verification time in milliseconds
+     */
+    private void calibrate(long targetMillis) {
+        executor.execute(() -> {
+            policy = HashingPolicy.calibrate(targetMillis);
+            calibrated = true;
+            System.out.println("BCrypt cost calibrated to " + policy.cost() + " for a target of " + targetMillis
+                    + "ms, set security.bcrypt.cost=" + policy.cost() + " to skip the calibration");
+        });
+    }
+
+    /**
+     * Get the latency (queue and run time) of an operation
+     *
+     * @param operation the operation
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Get the run time of an operation
+     *
+     * @param operation the operation
+     * @return the run time histogram
+     */
+    public LatencyHistogram getRunTime(Operation operation) {
+        return runTimes.get(operation);
+    }
+
+    /**
+     * Get the number of operations rejected because the queue was full
+     *
+     * @return the number of rejected operations
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the number of pending operations
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stop the pool once the pending operations are done
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Run an operation on the pool
+     *
+     * @param operation the operation
+     * @param supplier  the work of the operation
+     * @param <T>       the type of the result
+     * @return the future of the result, failed with a {@link RejectedExecutionException} if the queue is full
+     */
+    private <T> CompletableFuture<T> submit(Operation operation, Supplier<T> supplier) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return supplier.get();
+                } finally {
+                    long now = System.nanoTime();
+                    runTimes.get(operation).record(now - startedAt);
+                    latencies.get(operation).record(now - submittedAt);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Get the message of a response whose password operation failed
+     *
+     * @param throwable the failure of the operation
+     * @return {@link #BUSY_MESSAGE} if the operation was rejected, the message of the failure otherwise
+     */
+    public static String failureMessage(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof RejectedExecutionException) {
+            return BUSY_MESSAGE;
+        }
+        cause.printStackTrace();
+        return cause.getMessage() == null ? "Operation failed" : cause.getMessage();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d, rejected=%d, hash=[%s], verify=[%s]",
+                getQueueDepth(), getRejected(), getLatency(Operation.HASH), getLatency(Operation.VERIFY));
+    }
+}
@@ -0,0 +1,139 @@
+package fr.newstaz.istore.security;
+
+import fr.newstaz.istore.model.Store;
+import fr.newstaz.istore.model.User;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Session class holding the identity and the permissions of the logged user
+ * <p>
+ * A session is issued at login and never changes: the role is copied and the stores the user
+ * has a permission on ({@code users_permission}) are loaded once into a bitset indexed by store id,
+ * so every authorization check is answered in constant time without reading a repository.
+ * Permission changes apply from the next login.
+ * </p>
+ *
+ * @version 1.0
+ * @see fr.newstaz.istore.controller.AuthenticationController#getSession()
+ */
+public final class Session {
+
+    /**
+     * The id of the logged user
+     */
+    private final int userId;
+
+    /**
+     * The email of the logged user
+     */
+    private final String email;
+
+    /**
+     * The role of the logged user
+     */
+    private final User.Role role;
+
+    /**
+     * The ids of the stores the user has a permission on
+     */
+    private final BitSet permittedStores;
+
+    /**
+     * The time of the login in milliseconds since the epoch
+     */
+    private final long issuedAt;
+
+    /**
+     * Constructor
+     *
+     * @param user              the logged user
+     * @param permittedStoreIds the ids of the stores the user has a permission on
+     */
+    public Session(User user, Collection<Integer> permittedStoreIds) {
+        this.userId = user.getId();
+        this.email = user.getEmail();
+        this.role = user.getRole();
+        this.permittedStores = new BitSet();
+        for (int storeId : permittedStoreIds) {
+            permittedStores.set(storeId);
+        }
+        this.issuedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Get the id of the logged user
+     *
+     * @return the id of the user
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Get the email of the logged user
+     *
+     * @return the email of the user
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Get the role of the logged user
+     *
+     * @return the role of the user
+     */
+    public User.Role getRole() {
+        return role;
+    }
+
+    /**
+     * Get the time of the login
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Check if the logged user is an administrator
+     *
+     * @return true if the user is an administrator, false otherwise
+     */
+    public boolean isAdmin() {
+        return role == User.Role.ADMIN;
+    }
+
+    /**
+     * Check if a user is the logged user
+     *
+     * @param user the user
+     * @return true if the user has the id of the logged user, false otherwise
+     */
+    public boolean isUser(User user) {
+        return user != null && user.getId() == userId;
+    }
+
+    /**
+     * Check if the logged user has a permission on a store
+     *
+     * @param storeId the id of the store
+     * @return true if the user has a permission on the store, false otherwise
+     */
+    public boolean hasStorePermission(int storeId) {
+        return storeId >= 0 && permittedStores.get(storeId);
+    }
+
+    /**
+     * Check if the logged user can manage the employees of a store (administrators can manage every store)
+     *
+     * @param store the store
+     * @return true if the user can manage the employees, false otherwise
+     */
+    public boolean canManageEmployees(Store store) {
+        return isAdmin() || hasStorePermission(store.getId());
+    }
+}
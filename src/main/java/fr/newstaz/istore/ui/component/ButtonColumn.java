@@ -0,0 +1,63 @@
+package fr.newstaz.istore.ui.component;
+
+import javax.swing.*;
+import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.util.function.IntConsumer;
+
+public class ButtonColumn extends AbstractCellEditor implements TableCellRenderer, TableCellEditor {
+
+    private final JButton renderButton = new JButton();
+    private final JButton editButton = new JButton();
+    private final JLabel emptyLabel = new JLabel();
+    private final IntConsumer action;
+    private int editingRow = -1;
+
+    public ButtonColumn(IntConsumer action) {
+        this.action = action;
+        editButton.setFocusPainted(false);
+        editButton.addActionListener(e -> {
+            int row = editingRow;
+            fireEditingStopped();
+            if (row >= 0) {
+                action.accept(row);
+            }
+        });
+    }
+
+    public static void install(JTable table, int column, IntConsumer action) {
+        ButtonColumn buttonColumn = new ButtonColumn(action);
+        table.getColumnModel().getColumn(column).setCellRenderer(buttonColumn);
+        table.getColumnModel().getColumn(column).setCellEditor(buttonColumn);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        if (value == null) {
+            emptyLabel.setOpaque(isSelected);
+            emptyLabel.setBackground(table.getSelectionBackground());
+            return emptyLabel;
+        }
+        renderButton.setText(value.toString());
+        return renderButton;
+    }
+
+    @Override
+    public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+        editingRow = table.convertRowIndexToModel(row);
+        editButton.setText(value == null ? "" : value.toString());
+        return editButton;
+    }
+
+    @Override
+    public Object getCellEditorValue() {
+        return editButton.getText();
+    }
+
+    @Override
+    public boolean stopCellEditing() {
+        editingRow = -1;
+        return super.stopCellEditing();
+    }
+}
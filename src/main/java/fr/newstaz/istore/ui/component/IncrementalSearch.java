@@ -0,0 +1,110 @@
+package fr.newstaz.istore.ui.component;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+public class IncrementalSearch<T> {
+
+    public static final int DEFAULT_DELAY = 250;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final JTextField textField;
+    private final BiFunction<String, BooleanSupplier, CompletableFuture<List<T>>> query;
+    private final Runnable onReset;
+    private final Consumer<List<T>> onPage;
+    private final Consumer<Throwable> onFailure;
+    private final int pageSize;
+    private final Timer debounceTimer;
+
+    private CompletableFuture<List<T>> pending;
+    private AtomicBoolean pendingCancelled;
+    private int generation;
+
+    public IncrementalSearch(JTextField textField, BiFunction<String, BooleanSupplier, CompletableFuture<List<T>>> query, Runnable onReset, Consumer<List<T>> onPage, Consumer<Throwable> onFailure) {
+        this(textField, query, onReset, onPage, onFailure, DEFAULT_DELAY, DEFAULT_PAGE_SIZE);
+    }
+
+    public IncrementalSearch(JTextField textField, BiFunction<String, BooleanSupplier, CompletableFuture<List<T>>> query, Runnable onReset, Consumer<List<T>> onPage, Consumer<Throwable> onFailure, int delay, int pageSize) {
+        this.textField = textField;
+        this.query = query;
+        this.onReset = onReset;
+        this.onPage = onPage;
+        this.onFailure = onFailure;
+        this.pageSize = pageSize;
+
+        debounceTimer = new Timer(delay, e -> searchNow());
+        debounceTimer.setRepeats(false);
+
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+        });
+        textField.addActionListener(e -> searchNow());
+    }
+
+    public void searchNow() {
+        debounceTimer.stop();
+        cancel();
+
+        int current = ++generation;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<List<T>> future = query.apply(textField.getText(), cancelled::get);
+        pending = future;
+        pendingCancelled = cancelled;
+        future.whenComplete((results, throwable) -> SwingUtilities.invokeLater(() -> {
+            if (current != generation) {
+                return;
+            }
+            pending = null;
+            pendingCancelled = null;
+            if (throwable != null) {
+                onFailure.accept(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                return;
+            }
+            onReset.run();
+            deliver(results, 0, current);
+        }));
+    }
+
+    public void cancel() {
+        debounceTimer.stop();
+        generation++;
+        if (pending != null) {
+            pendingCancelled.set(true);
+            pending.cancel(false);
+            pending = null;
+            pendingCancelled = null;
+        }
+    }
+
+    private void deliver(List<T> results, int from, int current) {
+        if (current != generation || from >= results.size()) {
+            return;
+        }
+        int to = Math.min(from + pageSize, results.size());
+        onPage.accept(results.subList(from, to));
+        if (to < results.size()) {
+            SwingUtilities.invokeLater(() -> deliver(results, to, current));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.newstaz.istore.ui.component;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class RowTableModel<T> extends AbstractTableModel {
+
+    private final String[] columnNames;
+    private final List<T> rows = new ArrayList<>();
+
+    protected RowTableModel(String... columnNames) {
+        this.columnNames = columnNames;
+    }
+
+    protected abstract Object getValueAt(T row, int columnIndex);
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return getValueAt(rows.get(rowIndex), columnIndex);
+    }
+
+    public T getRow(int rowIndex) {
+        return rows.get(rowIndex);
+    }
+
+    public void setRows(List<T> newRows) {
+        rows.clear();
+        rows.addAll(newRows);
+        fireTableDataChanged();
+    }
+
+    public void clear() {
+        int size = rows.size();
+        if (size > 0) {
+            rows.clear();
+            fireTableRowsDeleted(0, size - 1);
+        }
+    }
+
+    public void addRows(List<T> newRows) {
+        if (newRows.isEmpty()) {
+            return;
+        }
+        int first = rows.size();
+        rows.addAll(newRows);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    public void rowUpdated(int rowIndex) {
+        fireTableRowsUpdated(rowIndex, rowIndex);
+    }
+
+    public void removeRow(int rowIndex) {
+        rows.remove(rowIndex);
+        fireTableRowsDeleted(rowIndex, rowIndex);
+    }
+}
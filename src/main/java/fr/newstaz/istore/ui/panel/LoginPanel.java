@@ -1,7 +1,6 @@
 package fr.newstaz.istore.ui.panel;
 
 import fr.newstaz.istore.controller.Controller;
-import fr.newstaz.istore.response.LoginResponse;
 import fr.newstaz.istore.ui.component.ToastComponent;
 
 import javax.swing.*;
@@ -57,6 +56,14 @@ public class LoginPanel extends JPanel {
         loginButton.addActionListener(e -> {
             SwingUtilities.invokeLater(this::performLogin);
         });
+        if (!controller.getWarmUp().isReady()) {
+            loginButton.setEnabled(false);
+            loginButton.setText("Loading...");
+            controller.getWarmUp().getReadiness().whenComplete((ignored, throwable) -> SwingUtilities.invokeLater(() -> {
+                loginButton.setText("Login");
+                loginButton.setEnabled(true);
+            }));
+        }
         add(loginButton, gbc);
 
         gbc.gridy++;
@@ -78,16 +85,15 @@ public class LoginPanel extends JPanel {
         String email = emailField.getText();
         String password = new String(passwordField.getPassword());
 
-        LoginResponse loginResponse = controller.getAuthenticationController().login(email, password);
-        if (loginResponse.success()) {
-            SwingUtilities.invokeLater(() -> {
+        controller.getAuthenticationController().loginAsync(email, password).thenAccept(loginResponse -> SwingUtilities.invokeLater(() -> {
+            if (loginResponse.success()) {
                 mainFrame.getContentPane().removeAll();
                 mainFrame.setContentPane(new HomePanel(controller, mainFrame));
                 mainFrame.revalidate();
-            });
-            ToastComponent.showSuccessToast(this, loginResponse.message());
-        } else {
-            ToastComponent.showFailedToast(this, loginResponse.message());
-        }
+                ToastComponent.showSuccessToast(this, loginResponse.message());
+            } else {
+                ToastComponent.showFailedToast(this, loginResponse.message());
+            }
+        }));
     }
 }
@@ -1,7 +1,6 @@
 package fr.newstaz.istore.ui.panel;
 
 import fr.newstaz.istore.controller.Controller;
-import fr.newstaz.istore.response.RegisterResponse;
 import fr.newstaz.istore.ui.component.ToastComponent;
 
 import javax.swing.*;
@@ -82,17 +81,15 @@ public class RegisterPanel extends JPanel {
             return;
         }
 
-        RegisterResponse registerResponse = controller.getAuthenticationController().register(email, password);
-
-        if (registerResponse.success()) {
-            SwingUtilities.invokeLater(() -> {
+        controller.getAuthenticationController().registerAsync(email, password).thenAccept(registerResponse -> SwingUtilities.invokeLater(() -> {
+            if (registerResponse.success()) {
                 mainFrame.getContentPane().removeAll();
                 mainFrame.setContentPane(new LoginPanel(controller, mainFrame));
                 mainFrame.revalidate();
-            });
-            ToastComponent.showSuccessToast(this, registerResponse.message());
-        } else {
-            ToastComponent.showFailedToast(this, registerResponse.message());
-        }
+                ToastComponent.showSuccessToast(this, registerResponse.message());
+            } else {
+                ToastComponent.showFailedToast(this, registerResponse.message());
+            }
+        }));
     }
 }
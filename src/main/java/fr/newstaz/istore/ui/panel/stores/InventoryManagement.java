@@ -5,16 +5,19 @@ import fr.newstaz.istore.model.Inventory;
 import fr.newstaz.istore.model.InventoryItem;
 import fr.newstaz.istore.model.Store;
 import fr.newstaz.istore.response.StoreResponse;
+import fr.newstaz.istore.ui.component.ButtonColumn;
 import fr.newstaz.istore.ui.component.ToastComponent;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class InventoryManagement extends JPanel {
     private final JFrame mainFrame;
     private final Controller controller;
     private final Store store;
-    private JPanel inventoryPanel;
+    private InventoryTableModel inventoryTableModel;
 
     public InventoryManagement(JFrame mainFrame, Controller controller, Store store) {
         this.mainFrame = mainFrame;
@@ -26,12 +29,17 @@ public class InventoryManagement extends JPanel {
     public void init() {
         setLayout(new BorderLayout());
 
-        inventoryPanel = new JPanel();
-        inventoryPanel.setLayout(new BoxLayout(inventoryPanel, BoxLayout.Y_AXIS));
+        // Only the visible rows of the table are rendered, whatever the size of the inventory
+        inventoryTableModel = new InventoryTableModel(this::adjustQuantity);
+        JTable inventoryTable = new JTable(inventoryTableModel);
+        inventoryTable.setRowHeight(30);
+        inventoryTable.setFillsViewportHeight(true);
+        inventoryTable.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+        ButtonColumn.install(inventoryTable, InventoryTableModel.DELETE_COLUMN, this::deleteItem);
         displayInventory(store.getInventory());
 
-        // Wrap the inventoryPanel with a JScrollPane
-        JScrollPane scrollPane = new JScrollPane(inventoryPanel);
+        // Wrap the inventoryTable with a JScrollPane
+        JScrollPane scrollPane = new JScrollPane(inventoryTable);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
 
@@ -58,54 +66,30 @@ public class InventoryManagement extends JPanel {
     }
 
     private void displayInventory(Inventory inventory) {
-        inventoryPanel.removeAll();
-
-        for (InventoryItem item : inventory.getItems()) {
-            JPanel itemRow = new JPanel(new BorderLayout());
-
-            JPanel itemDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-            itemDetailsPanel.add(new JLabel("Item: " + item.getName()));
-            itemDetailsPanel.add(new JLabel("Price: " + item.getPrice()));
-
-            JTextField quantityTextField = new JTextField(Integer.toString(item.getQuantity()));
-            quantityTextField.setPreferredSize(new Dimension(50, 20));
-            quantityTextField.addActionListener(e -> {
-                StoreResponse.UpdateInventoryItemResponse updateInventoryItemResponse = controller.getStoreController().updateInventoryItem(store, item, Integer.parseInt(quantityTextField.getText()));
-                if (!updateInventoryItemResponse.success()) {
-                    ToastComponent.showFailedToast(this, updateInventoryItemResponse.message());
-                    return;
-                }
-
-                ToastComponent.showSuccessToast(this, updateInventoryItemResponse.message());
-                item.setQuantity(Integer.parseInt(quantityTextField.getText()));
-                displayInventory(inventory);
-            });
-
-            itemDetailsPanel.add(new JLabel("Quantity: "));
-            itemDetailsPanel.add(quantityTextField);
-
+        inventoryTableModel.setRows(inventory == null ? List.of() : inventory.getItems());
+    }
 
-            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-            JButton deleteButton = new JButton("DELETE");
-            deleteButton.addActionListener(e -> {
-                StoreResponse.DeleteInventoryItemResponse deleteInventoryItemResponse = controller.getStoreController().removeInventoryItem(store, item);
-                if (!deleteInventoryItemResponse.success()) {
-                    ToastComponent.showFailedToast(this, deleteInventoryItemResponse.message());
-                    return;
+    private CompletableFuture<Integer> adjustQuantity(InventoryItem item, int delta) {
+        return controller.getStoreController().adjustInventoryItemAsync(store, item, delta).thenApply(adjustInventoryItemResponse -> {
+            SwingUtilities.invokeLater(() -> {
+                if (adjustInventoryItemResponse.success()) {
+                    ToastComponent.showSuccessToast(this, adjustInventoryItemResponse.message());
+                } else {
+                    ToastComponent.showFailedToast(this, adjustInventoryItemResponse.message());
                 }
-                ToastComponent.showSuccessToast(this, deleteInventoryItemResponse.message());
-                displayInventory(inventory);
             });
+            return adjustInventoryItemResponse.success() ? adjustInventoryItemResponse.quantity() : null;
+        });
+    }
 
-            buttonPanel.add(deleteButton);
-
-            itemRow.add(itemDetailsPanel, BorderLayout.CENTER);
-            itemRow.add(buttonPanel, BorderLayout.EAST);
-
-            inventoryPanel.add(itemRow);
+    private void deleteItem(int row) {
+        InventoryItem item = inventoryTableModel.getRow(row);
+        StoreResponse.DeleteInventoryItemResponse deleteInventoryItemResponse = controller.getStoreController().removeInventoryItem(store, item);
+        if (!deleteInventoryItemResponse.success()) {
+            ToastComponent.showFailedToast(this, deleteInventoryItemResponse.message());
+            return;
         }
-
-        inventoryPanel.revalidate();
-        inventoryPanel.repaint();
+        ToastComponent.showSuccessToast(this, deleteInventoryItemResponse.message());
+        inventoryTableModel.removeRow(row);
     }
 }
@@ -0,0 +1,71 @@
+package fr.newstaz.istore.ui.panel.stores;
+
+import fr.newstaz.istore.model.InventoryItem;
+import fr.newstaz.istore.ui.component.RowTableModel;
+
+import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+public class InventoryTableModel extends RowTableModel<InventoryItem> {
+
+    public static final int NAME_COLUMN = 0;
+    public static final int PRICE_COLUMN = 1;
+    public static final int QUANTITY_COLUMN = 2;
+    public static final int DELETE_COLUMN = 3;
+
+    private final BiFunction<InventoryItem, Integer, CompletableFuture<Integer>> quantityAdjuster;
+
+    public InventoryTableModel(BiFunction<InventoryItem, Integer, CompletableFuture<Integer>> quantityAdjuster) {
+        super("Item", "Price", "Quantity", "");
+        this.quantityAdjuster = quantityAdjuster;
+    }
+
+    @Override
+    protected Object getValueAt(InventoryItem item, int columnIndex) {
+        return switch (columnIndex) {
+            case NAME_COLUMN -> item.getName();
+            case PRICE_COLUMN -> item.getPrice();
+            case QUANTITY_COLUMN -> item.getQuantity();
+            case DELETE_COLUMN -> "DELETE";
+            default -> null;
+        };
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return switch (columnIndex) {
+            case PRICE_COLUMN, QUANTITY_COLUMN -> Integer.class;
+            default -> String.class;
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex == QUANTITY_COLUMN || columnIndex == DELETE_COLUMN;
+    }
+
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex) {
+        if (columnIndex != QUANTITY_COLUMN || !(value instanceof Integer quantity)) {
+            return;
+        }
+        InventoryItem item = getRow(rowIndex);
+        int delta = quantity - item.getQuantity();
+        if (delta == 0) {
+            return;
+        }
+        // The adjustment runs on the database executor, the row is updated once it is done
+        quantityAdjuster.apply(item, delta).thenAccept(newQuantity -> SwingUtilities.invokeLater(() -> {
+            if (newQuantity == null) {
+                return;
+            }
+            item.setQuantity(newQuantity);
+            if (rowIndex < getRowCount() && getRow(rowIndex) == item) {
+                rowUpdated(rowIndex);
+            } else {
+                fireTableDataChanged();
+            }
+        }));
+    }
+}
@@ -2,7 +2,8 @@ package fr.newstaz.istore.ui.panel.stores;
 
 import fr.newstaz.istore.controller.Controller;
 import fr.newstaz.istore.model.Store;
-import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.security.Session;
+import fr.newstaz.istore.ui.component.ButtonColumn;
 import fr.newstaz.istore.ui.component.ToastComponent;
 import fr.newstaz.istore.ui.panel.HomePanel;
 
@@ -16,7 +17,7 @@ public class StoreManagement extends JPanel {
     private final JFrame mainFrame;
 
     private JTextField searchTextField;
-    private JPanel storePanel;
+    private StoreTableModel storeTableModel;
 
     public StoreManagement(Controller controller, JFrame mainFrame) {
         this.controller = controller;
@@ -33,9 +34,18 @@ public class StoreManagement extends JPanel {
 
         searchButton.addActionListener(e -> displayStores(controller.getStoreController().searchStores(searchTextField.getText())));
 
-        // Panel for stores
-        storePanel = new JPanel();
-        storePanel.setLayout(new BoxLayout(storePanel, BoxLayout.Y_AXIS));
+        // Table of stores, the permissions come from the session of the logged user
+        Session session = controller.getAuthenticationController().getSession();
+        boolean admin = session != null && session.isAdmin();
+        storeTableModel = new StoreTableModel(admin, store -> session != null && session.canManageEmployees(store));
+        JTable storeTable = new JTable(storeTableModel);
+        storeTable.setRowHeight(30);
+        storeTable.setFillsViewportHeight(true);
+        ButtonColumn.install(storeTable, StoreTableModel.INVENTORY_COLUMN, this::manageInventory);
+        ButtonColumn.install(storeTable, StoreTableModel.EMPLOYEES_COLUMN, this::manageEmployees);
+        if (admin) {
+            ButtonColumn.install(storeTable, StoreTableModel.DELETE_COLUMN, this::deleteStore);
+        }
 
         displayStores(controller.getStoreController().getAllStores());
 
@@ -47,7 +57,7 @@ public class StoreManagement extends JPanel {
             mainFrame.setContentPane(new AddStorePanel(controller, mainFrame));
             mainFrame.revalidate();
         }));
-        if (controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN) {
+        if (admin) {
             bottomPanel.add(addButton);
         }
 
@@ -65,7 +75,7 @@ public class StoreManagement extends JPanel {
         topPanel.add(searchButton, BorderLayout.EAST);
 
         JPanel centerPanel = new JPanel(new BorderLayout());
-        JScrollPane comp = new JScrollPane(storePanel);
+        JScrollPane comp = new JScrollPane(storeTable);
         comp.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         comp.getVerticalScrollBar().setUnitIncrement(16);
         centerPanel.add(comp, BorderLayout.CENTER);
@@ -75,51 +85,34 @@ public class StoreManagement extends JPanel {
         add(bottomPanel, BorderLayout.SOUTH);
     }
 
-    // Method to display stores with buttons "MODIFIER"
     public void displayStores(List<Store> storeList) {
-        storePanel.removeAll();
-        for (Store store : storeList) {
-            JPanel storeRow = new JPanel(new BorderLayout());
-            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-            if (controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN) {
-                JButton deleteButton = new JButton("DELETE");
-                deleteButton.addActionListener(e -> {
-                    boolean success = controller.getStoreController().deleteStore(store);
-                    if (success) {
-                        ToastComponent.showSuccessToast(this, "Store deleted");
-                        SwingUtilities.invokeLater(() -> {
-                            mainFrame.setContentPane(new StoreManagement(controller, mainFrame));
-                            mainFrame.revalidate();
-                        });
-                    } else {
-                        ToastComponent.showFailedToast(this, "Store not deleted");
-                    }
-                });
-                buttonPanel.add(deleteButton, BorderLayout.WEST);
-            }
-            if (controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN || controller.getStoreController().getEmployeesPermissions(store).contains(controller.getAuthenticationController().getLoggedUser())){
-                JButton manageEmployeesButton = new JButton("MANAGE EMPLOYEES");
-                manageEmployeesButton.addActionListener(e -> SwingUtilities.invokeLater(() -> {
-                    mainFrame.setContentPane(new UsersInStorePanel(mainFrame, controller, store));
-                    mainFrame.revalidate();
-                }));
-                buttonPanel.add(manageEmployeesButton);
-            }
-            JButton manageInventoryButton = new JButton("MANAGE INVENTORY");
-            manageInventoryButton.addActionListener(e -> SwingUtilities.invokeLater(() -> {
-                mainFrame.setContentPane(new InventoryManagement(mainFrame, controller, store));
-                mainFrame.revalidate();
-            }));
-            JPanel storeDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-            storeDetailsPanel.add(new JLabel("Store Name: " + store.getName()));
-
-            buttonPanel.add(manageInventoryButton);
-            storeRow.add(storeDetailsPanel, BorderLayout.CENTER);
-            storeRow.add(buttonPanel, BorderLayout.EAST);
-
-            storePanel.add(storeRow);
+        storeTableModel.setRows(storeList);
+    }
+
+    private void manageInventory(int row) {
+        Store store = storeTableModel.getRow(row);
+        SwingUtilities.invokeLater(() -> {
+            mainFrame.setContentPane(new InventoryManagement(mainFrame, controller, store));
+            mainFrame.revalidate();
+        });
+    }
+
+    private void manageEmployees(int row) {
+        Store store = storeTableModel.getRow(row);
+        SwingUtilities.invokeLater(() -> {
+            mainFrame.setContentPane(new UsersInStorePanel(mainFrame, controller, store));
+            mainFrame.revalidate();
+        });
+    }
+
+    private void deleteStore(int row) {
+        Store store = storeTableModel.getRow(row);
+        boolean success = controller.getStoreController().deleteStore(store);
+        if (success) {
+            ToastComponent.showSuccessToast(this, "Store deleted");
+            storeTableModel.removeRow(row);
+        } else {
+            ToastComponent.showFailedToast(this, "Store not deleted");
         }
-        storePanel.revalidate();
-        storePanel.repaint();
     }
-}
\ No newline at end of file
+}
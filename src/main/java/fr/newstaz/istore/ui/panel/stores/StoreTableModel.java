@@ -0,0 +1,39 @@
+package fr.newstaz.istore.ui.panel.stores;
+
+import fr.newstaz.istore.model.Store;
+import fr.newstaz.istore.ui.component.RowTableModel;
+
+import java.util.function.Predicate;
+
+public class StoreTableModel extends RowTableModel<Store> {
+
+    public static final int NAME_COLUMN = 0;
+    public static final int INVENTORY_COLUMN = 1;
+    public static final int EMPLOYEES_COLUMN = 2;
+    public static final int DELETE_COLUMN = 3;
+
+    private final boolean admin;
+    private final Predicate<Store> canManageEmployees;
+
+    public StoreTableModel(boolean admin, Predicate<Store> canManageEmployees) {
+        super(admin ? new String[]{"Store Name", "", "", ""} : new String[]{"Store Name", "", ""});
+        this.admin = admin;
+        this.canManageEmployees = canManageEmployees;
+    }
+
+    @Override
+    protected Object getValueAt(Store store, int columnIndex) {
+        return switch (columnIndex) {
+            case NAME_COLUMN -> store.getName();
+            case INVENTORY_COLUMN -> "MANAGE INVENTORY";
+            case EMPLOYEES_COLUMN -> canManageEmployees.test(store) ? "MANAGE EMPLOYEES" : null;
+            case DELETE_COLUMN -> "DELETE";
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex != NAME_COLUMN && (admin || columnIndex != DELETE_COLUMN) && getValueAt(rowIndex, columnIndex) != null;
+    }
+}
@@ -37,7 +37,7 @@ public class UsersInStorePanel extends JPanel {
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 
-        if (controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN) {
+        if (controller.getAuthenticationController().getSession().isAdmin()) {
             JButton addEmployeeButton = new JButton("AJOUTER UN EMPLOYÉ");
             addEmployeeButton.addActionListener(e -> SwingUtilities.invokeLater(() -> {
                 mainFrame.setContentPane(new AddUserToStorePanel(controller, mainFrame, store));
@@ -60,13 +60,15 @@ public class UsersInStorePanel extends JPanel {
     private void displayUsers(List<User> userList) {
         usersPanel.removeAll();
 
+        boolean admin = controller.getAuthenticationController().getSession().isAdmin();
+        List<User> permittedUsers = admin ? controller.getStoreController().getEmployeesPermissions(store) : List.of();
         for (User user : userList) {
             JPanel userRow = new JPanel(new BorderLayout());
             JPanel userDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
             userDetailsPanel.add(new JLabel("Email: " + user.getEmail()));
 
-            if (controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN){
-                if (controller.getStoreController().getEmployeesPermissions(store).contains(user)) {
+            if (admin) {
+                if (permittedUsers.contains(user)) {
                     JButton removePermissionsButton = new JButton("REMOVE PERMISSIONS");
                     removePermissionsButton.addActionListener(e -> {
                         StoreResponse.RemovePermissionResponse removePermission = controller.getStoreController().removePermission(store, user);
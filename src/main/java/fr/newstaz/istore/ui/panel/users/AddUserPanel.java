@@ -96,15 +96,14 @@ public class AddUserPanel extends JPanel {
         user.setPassword(password);
         user.setRole(role);
 
-        UserResponse.CreateUserResponse createUserResponse = controller.getUserController().createUser(user);
-        if (createUserResponse.success()) {
-            ToastComponent.showSuccessToast(this, createUserResponse.message());
-            SwingUtilities.invokeLater(() -> {
+        controller.getUserController().createUserAsync(user).thenAccept(createUserResponse -> SwingUtilities.invokeLater(() -> {
+            if (createUserResponse.success()) {
+                ToastComponent.showSuccessToast(this, createUserResponse.message());
                 mainFrame.setContentPane(new UserManagementPanel(controller, mainFrame));
                 mainFrame.revalidate();
-            });
-        } else {
-            ToastComponent.showFailedToast(this, createUserResponse.message());
-        }
+            } else {
+                ToastComponent.showFailedToast(this, createUserResponse.message());
+            }
+        }));
     }
 }
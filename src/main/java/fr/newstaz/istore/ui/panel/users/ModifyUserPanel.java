@@ -96,7 +96,7 @@ public class ModifyUserPanel extends JPanel {
         }));
         add(cancelButton, gbc);
 
-        if (controller.getAuthenticationController().getLoggedUser().equals(user)) {
+        if (controller.getAuthenticationController().getSession().isUser(user)) {
             roleBox.setEnabled(false);
             deleteButton.setEnabled(false);
         }
@@ -114,17 +114,16 @@ public class ModifyUserPanel extends JPanel {
             password = user.getPassword();
         }
 
-        UserResponse.EditUserResponse editUserResponse = controller.getUserController().editUser(user, email, password, role);
-        if (!editUserResponse.success()) {
-            ToastComponent.showFailedToast(this, editUserResponse.message());
-            return;
-        }
+        controller.getUserController().editUserAsync(user, email, password, role).thenAccept(editUserResponse -> SwingUtilities.invokeLater(() -> {
+            if (!editUserResponse.success()) {
+                ToastComponent.showFailedToast(this, editUserResponse.message());
+                return;
+            }
 
-        ToastComponent.showSuccessToast(this, editUserResponse.message());
-        SwingUtilities.invokeLater(() -> {
+            ToastComponent.showSuccessToast(this, editUserResponse.message());
             mainFrame.setContentPane(new UserManagementPanel(controller, mainFrame));
             mainFrame.revalidate();
-        });
+        }));
     }
 
     private void performDelete(User user) {
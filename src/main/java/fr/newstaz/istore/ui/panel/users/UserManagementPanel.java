@@ -2,6 +2,10 @@ package fr.newstaz.istore.ui.panel.users;
 
 import fr.newstaz.istore.controller.Controller;
 import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.security.Session;
+import fr.newstaz.istore.ui.component.ButtonColumn;
+import fr.newstaz.istore.ui.component.IncrementalSearch;
+import fr.newstaz.istore.ui.component.ToastComponent;
 import fr.newstaz.istore.ui.panel.HomePanel;
 
 import javax.swing.*;
@@ -14,7 +18,8 @@ public class UserManagementPanel extends JPanel {
     private final JFrame mainFrame;
 
     private JTextField searchTextField;
-    private JPanel userPanel;
+    private UserTableModel userTableModel;
+    private IncrementalSearch<User> search;
 
     public UserManagementPanel(Controller controller, JFrame mainFrame) {
         this.controller = controller;
@@ -28,16 +33,24 @@ public class UserManagementPanel extends JPanel {
         searchTextField = new JTextField();
         JButton searchButton = new JButton("SEARCH");
 
-        searchButton.addActionListener(e -> displayUsers(controller.getUserController().searchUsers(searchTextField.getText())));
-
-        userPanel = new JPanel();
-        userPanel.setLayout(new BoxLayout(userPanel, BoxLayout.Y_AXIS));
+        Session session = controller.getAuthenticationController().getSession();
+        boolean admin = session != null && session.isAdmin();
+        userTableModel = new UserTableModel(admin);
+        JTable userTable = new JTable(userTableModel);
+        userTable.setRowHeight(30);
+        userTable.setFillsViewportHeight(true);
+        if (admin) {
+            ButtonColumn.install(userTable, UserTableModel.VERIFY_COLUMN, this::verifyUser);
+            ButtonColumn.install(userTable, UserTableModel.MODIFY_COLUMN, this::modifyUser);
+        }
 
-        displayUsers(controller.getUserController().getAllUsers());
+        search = new IncrementalSearch<>(searchTextField, controller.getUserController()::searchUsersAsync, userTableModel::clear, userTableModel::addRows, this::searchFailed);
+        searchButton.addActionListener(e -> search.searchNow());
+        search.searchNow();
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 
-        if (controller.getAuthenticationController().getLoggedUser() != null && controller.getAuthenticationController().getLoggedUser().getRole() == User.Role.ADMIN) {
+        if (admin) {
             JButton addButton = new JButton("AJOUTER UN UTILISATEUR");
             addButton.addActionListener(e -> SwingUtilities.invokeLater(() -> {
                 mainFrame.setContentPane(new AddUserPanel(controller, mainFrame));
@@ -51,7 +64,7 @@ public class UserManagementPanel extends JPanel {
         topPanel.add(searchButton, BorderLayout.EAST);
 
         JPanel centerPanel = new JPanel(new BorderLayout());
-        JScrollPane comp = new JScrollPane(userPanel);
+        JScrollPane comp = new JScrollPane(userTable);
 
         comp.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         comp.getVerticalScrollBar().setUnitIncrement(16);
@@ -63,6 +76,7 @@ public class UserManagementPanel extends JPanel {
 
         JButton backButton = new JButton("RETOUR");
         backButton.addActionListener(e -> SwingUtilities.invokeLater(() -> {
+            search.cancel();
             mainFrame.setContentPane(new HomePanel(controller, mainFrame));
             mainFrame.revalidate();
         }));
@@ -71,56 +85,27 @@ public class UserManagementPanel extends JPanel {
     }
 
     public void displayUsers(List<User> userList) {
-        userPanel.removeAll();
-
-        for (User user : userList) {
-            User loggedUser = controller.getAuthenticationController().getLoggedUser();
-            JPanel userRow = new JPanel(new BorderLayout());
-
-            if (loggedUser != null && loggedUser.getRole() == User.Role.ADMIN) {
-                JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-                JButton modifyButton = new JButton("MODIFIER");
-                modifyButton.addActionListener(e -> {
-                    SwingUtilities.invokeLater(() -> {
-                        mainFrame.setContentPane(new ModifyUserPanel(controller, mainFrame, user));
-                        mainFrame.revalidate();
-                    });
-                });
-
-                JButton verifyButton = new JButton("VERIFIER");
-                if (!user.isVerified()) {
-                    verifyButton.addActionListener(e -> {
-                        SwingUtilities.invokeLater(() -> {
-                            controller.getUserController().verifyUser(user);
-                            mainFrame.setContentPane(new UserManagementPanel(controller, mainFrame));
-                            mainFrame.revalidate();
-                        });
-                    });
-                    buttonPanel.add(verifyButton);
-                }
-
-                buttonPanel.add(modifyButton);
-
-
-                JPanel userDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-                userDetailsPanel.add(new JLabel("Email: " + user.getEmail()));
-                userDetailsPanel.add(new JLabel("Role: " + user.getRole()));
-
-                userRow.add(userDetailsPanel, BorderLayout.CENTER);
-                userRow.add(buttonPanel, BorderLayout.EAST);
-            } else {
-                JPanel userDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-                userDetailsPanel.add(new JLabel("Email: " + user.getEmail()));
-                userDetailsPanel.add(new JLabel("Role: " + user.getRole()));
-
-                userRow.add(userDetailsPanel, BorderLayout.CENTER);
-            }
-
-            userPanel.add(userRow);
-        }
+        search.cancel();
+        userTableModel.setRows(userList);
+    }
 
-        userPanel.revalidate();
-        userPanel.repaint();
+    private void verifyUser(int row) {
+        User user = userTableModel.getRow(row);
+        controller.getUserController().verifyUser(user);
+        userTableModel.rowUpdated(row);
     }
-}
 
+    private void modifyUser(int row) {
+        User user = userTableModel.getRow(row);
+        SwingUtilities.invokeLater(() -> {
+            search.cancel();
+            mainFrame.setContentPane(new ModifyUserPanel(controller, mainFrame, user));
+            mainFrame.revalidate();
+        });
+    }
+
+    private void searchFailed(Throwable throwable) {
+        throwable.printStackTrace();
+        ToastComponent.showFailedToast(this, "Search failed: " + throwable.getMessage());
+    }
+}
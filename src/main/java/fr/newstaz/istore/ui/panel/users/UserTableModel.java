@@ -0,0 +1,35 @@
+package fr.newstaz.istore.ui.panel.users;
+
+import fr.newstaz.istore.model.User;
+import fr.newstaz.istore.ui.component.RowTableModel;
+
+public class UserTableModel extends RowTableModel<User> {
+
+    public static final int EMAIL_COLUMN = 0;
+    public static final int ROLE_COLUMN = 1;
+    public static final int VERIFY_COLUMN = 2;
+    public static final int MODIFY_COLUMN = 3;
+
+    private final boolean admin;
+
+    public UserTableModel(boolean admin) {
+        super(admin ? new String[]{"Email", "Role", "", ""} : new String[]{"Email", "Role"});
+        this.admin = admin;
+    }
+
+    @Override
+    protected Object getValueAt(User user, int columnIndex) {
+        return switch (columnIndex) {
+            case EMAIL_COLUMN -> user.getEmail();
+            case ROLE_COLUMN -> user.getRole();
+            case VERIFY_COLUMN -> user.isVerified() ? null : "VERIFIER";
+            case MODIFY_COLUMN -> "MODIFIER";
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return admin && columnIndex >= VERIFY_COLUMN && getValueAt(rowIndex, columnIndex) != null;
+    }
+}
@@ -0,0 +1,44 @@
+-- Tables of the application, as created before the schema was versioned.
+-- ${AUTO_INCREMENT_PRIMARY_KEY} is replaced by the auto-incremented primary key definition of the dialect.
+CREATE TABLE IF NOT EXISTS users (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    email VARCHAR(255) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    is_verified BOOLEAN
+);
+
+CREATE TABLE IF NOT EXISTS stores (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    name VARCHAR(100) UNIQUE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stores_employee (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    store_id INT NOT NULL,
+    employee_id INT NOT NULL,
+    FOREIGN KEY (store_id) REFERENCES stores(id),
+    FOREIGN KEY (employee_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS users_permission (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    store_id INT NOT NULL,
+    user_id INT NOT NULL,
+    FOREIGN KEY (store_id) REFERENCES stores(id),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS inventory (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    store_id INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS inventory_items (
+    id ${AUTO_INCREMENT_PRIMARY_KEY},
+    inventory_id INTEGER,
+    name VARCHAR(255),
+    price INTEGER,
+    quantity INTEGER,
+    FOREIGN KEY (inventory_id) REFERENCES inventory(id)
+);
@@ -0,0 +1,44 @@
+-- Indexes of the DAO lookups.
+-- The unique indexes were not enforced before, so the duplicate rows are removed first, keeping the oldest one.
+-- The duplicates are selected through a derived table, MySQL refusing to read the table a DELETE or UPDATE writes.
+-- An index that already exists (migration partially applied by MySQL, which commits each DDL) is skipped.
+
+-- stores_employee: StoreDAO.getEmployees and StoreDAO.isEmployeeAlreadyAdded (an employee is added once per store)
+DELETE FROM stores_employee WHERE id IN (
+    SELECT id FROM (
+        SELECT duplicate.id FROM stores_employee duplicate
+        JOIN stores_employee kept ON kept.store_id = duplicate.store_id AND kept.employee_id = duplicate.employee_id AND kept.id < duplicate.id
+    ) duplicates
+);
+CREATE UNIQUE INDEX ux_stores_employee_store_employee ON stores_employee (store_id, employee_id);
+
+-- users_permission: StoreDAO.getEmployeesPermissions and StoreDAO.removeEmployeePermission
+CREATE INDEX ix_users_permission_store_user ON users_permission (store_id, user_id);
+
+-- inventory: InventoryDAO.getInventory (one inventory per store)
+-- The items of a duplicate inventory are moved to the oldest inventory of the store before it is removed
+UPDATE inventory_items SET inventory_id = (
+    SELECT MIN(kept.id) FROM inventory kept
+    JOIN inventory duplicate ON duplicate.store_id = kept.store_id
+    WHERE duplicate.id = inventory_items.inventory_id
+)
+WHERE inventory_id IN (
+    SELECT duplicate.id FROM inventory duplicate
+    JOIN inventory kept ON kept.store_id = duplicate.store_id AND kept.id < duplicate.id
+);
+DELETE FROM inventory WHERE id IN (
+    SELECT id FROM (
+        SELECT duplicate.id FROM inventory duplicate
+        JOIN inventory kept ON kept.store_id = duplicate.store_id AND kept.id < duplicate.id
+    ) duplicates
+);
+CREATE UNIQUE INDEX ux_inventory_store ON inventory (store_id);
+
+-- inventory_items: InventoryDAO.getItem and the duplicate name check of the items
+DELETE FROM inventory_items WHERE id IN (
+    SELECT id FROM (
+        SELECT duplicate.id FROM inventory_items duplicate
+        JOIN inventory_items kept ON kept.inventory_id = duplicate.inventory_id AND kept.name = duplicate.name AND kept.id < duplicate.id
+    ) duplicates
+);
+CREATE UNIQUE INDEX ux_inventory_items_inventory_name ON inventory_items (inventory_id, name);
@@ -0,0 +1,6 @@
+-- Versions of the seeded accounts (see AccountSeeder), an account is seeded again when its version changes.
+CREATE TABLE IF NOT EXISTS seed_version (
+    name VARCHAR(100) PRIMARY KEY,
+    version INT NOT NULL,
+    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,2 @@
+-- users_permission: StoreDAO.getPermittedStoreIds, loading the permissions of the session at login
+CREATE INDEX ix_users_permission_user_store ON users_permission (user_id, store_id);
@@ -0,0 +1,113 @@
+package fr.newstaz.istore.cache;
+
+import com.google.common.cache.LoadingCache;
+import fr.newstaz.istore.AppConfig;
+import fr.newstaz.istore.database.Database;
+import fr.newstaz.istore.database.SchemaMigrator;
+import fr.newstaz.istore.database.StatementCacheMetrics;
+import fr.newstaz.istore.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RefreshAheadLoaderTest {
+
+    private static final int CALLERS = 16;
+
+    private Database database;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("database.url", "jdbc:h2:mem:refresh-ahead-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.setProperty("database.username", "sa");
+        database = new Database(new AppConfig(properties));
+        new SchemaMigrator(database).migrate();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    void concurrentMissesLoadTheSnapshotOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        RefreshAheadLoader<List<String>> loader = new RefreshAheadLoader<>(database, () -> {
+            loads.incrementAndGet();
+            sleep(100);
+            return List.of("snapshot");
+        });
+        LoadingCache<String, List<String>> cache = RefreshAheadLoader.newCacheBuilder(database.getAppConfig()).build(loader);
+
+        List<Integer> sizes = missAtOnce(() -> cache.getUnchecked("key").size());
+
+        assertEquals(1, loads.get());
+        sizes.forEach(size -> assertEquals(1, size));
+    }
+
+    @Test
+    void concurrentMissesOnColdUserCacheRunOneQuery() throws Exception {
+        try (var connection = database.getConnection()) {
+            connection.createStatement().executeUpdate(
+                    "INSERT INTO users (email, password, role, is_verified) VALUES ('user@istore.fr', 'password', 'USER', true)");
+        }
+        UserCache userCache = new UserCache(database);
+        StatementCacheMetrics metrics = database.getConnectionPool().getStatementCacheMetrics();
+        long queriesBefore = metrics.getHits() + metrics.getMisses();
+
+        List<Integer> sizes = missAtOnce(() -> userCache.getAllUsers().size());
+
+        assertEquals(1, metrics.getHits() + metrics.getMisses() - queriesBefore);
+        sizes.forEach(size -> assertEquals(1, size));
+        User user = userCache.getUser("user@istore.fr");
+        assertEquals("user@istore.fr", user.getEmail());
+    }
+
+    private List<Integer> missAtOnce(Callable<Integer> read) throws Exception {
+        CountDownLatch ready = new CountDownLatch(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                return read.call();
+            }));
+        }
+        ready.await();
+        start.countDown();
+
+        List<Integer> values = new ArrayList<>(CALLERS);
+        for (Future<Integer> result : results) {
+            values.add(result.get(10, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}